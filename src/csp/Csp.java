@@ -5,6 +5,8 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 
+import util.Fingerprint;
+
 /**
  * 木材切割算例.
  * 
@@ -51,6 +53,13 @@ class Csp {
         bfr.close();
     }
     
+    /**
+     * @return 算例内容的指纹.
+     */
+    String getFingerprint() {
+        return new Fingerprint("CSP").update(rollLength).update(size).update(amount).toHexString();
+    }
+    
     double getRollLength() {
         return rollLength;
     }
@@ -2,6 +2,8 @@ package fctp;
 
 import java.util.Random;
 
+import util.Fingerprint;
+
 /**
  * Fixed Charge Transportation Problem(FCTP) 的实例类. <br>
  * 
@@ -52,6 +54,14 @@ public class Fctp {
 
     }
 
+    /**
+     * @return 算例内容的指纹.
+     */
+    public String getFingerprint() {
+        return new Fingerprint("FCTP").update(warehouseNum).update(customerNum).update(demand)
+                .update(capacity).update(fixedCost).update(flowCost).toHexString();
+    }
+
     public int getWarehouseNum() {
         return warehouseNum;
     }
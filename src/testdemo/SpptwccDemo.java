@@ -7,9 +7,11 @@ import java.util.Map;
 import vrptw.algorithm.subproblem.AbstractPriceProblem;
 import vrptw.algorithm.subproblem.labelalgorithm.EspptwccViaLabelCorrecting;
 import vrptw.algorithm.subproblem.labelalgorithm.SpptwccViaLabelSetting;
+import vrptw.algorithm.subproblem.pulsealgorithm.BidirectionalEspptwccViaPulse;
 import vrptw.algorithm.subproblem.pulsealgorithm.EspptwccViaPulse;
 import vrptw.parameter.Parameters;
 import vrptw.problem.Vrptw;
+import vrptw.problem.VrptwPreprocessor;
 
 /**
  * SPPTWCC/ESPPTWCC Algorithm Test.
@@ -24,7 +26,7 @@ public class SpptwccDemo {
         String spptwccOrEspptwcc = Parameters.ESPPTWCC_PULSE;
         String filename = "./instances/solomon_100/r101.txt";
         try {
-            Vrptw vrptwIns = new Vrptw(filename);
+            Vrptw vrptwIns = new VrptwPreprocessor(Vrptw.load(filename)).preprocess();
             double[] lambda = { 4.5800000000000125, 10.420000000000002, 0.7199999999999989, 14.940000000000012, -0.0,
                     20.31000000000001, 18.52000000000002, 18.939999999999984, 16.959999999999994, 9.180000000000003,
                     29.693333333333346, 18.48, 0.2600000000000193, 23.82, 22.500000000000007, 16.809999999999967,
@@ -61,6 +63,14 @@ public class SpptwccDemo {
                 case Parameters.ESPPTWCC_PULSE:
                     subAlg = new EspptwccViaPulse(vrptwIns);
                     break;
+                case Parameters.ESPPTWCC_PULSE_WITH_QUEUE:
+                    EspptwccViaPulse pulseWithQueue = new EspptwccViaPulse(vrptwIns);
+                    pulseWithQueue.setQueueing(true);
+                    subAlg = pulseWithQueue;
+                    break;
+                case Parameters.ESPPTWCC_BIDIRECTIONAL_PULSE:
+                    subAlg = new BidirectionalEspptwccViaPulse(vrptwIns);
+                    break;
                 default:
                     throw new IllegalArgumentException(
                             String.format("%s algorithm is not supported yet.", spptwccOrEspptwcc));
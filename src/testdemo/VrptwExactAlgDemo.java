@@ -22,7 +22,7 @@ public class VrptwExactAlgDemo {
         String exactAlgType = "BranchAndBound";
         
         try {
-            Vrptw vrptwIns = new Vrptw(filename);
+            Vrptw vrptwIns = Vrptw.load(filename);
 
             VrptwExactAlgorithm vrptwExactAlg;
             switch (exactAlgType) {
@@ -5,6 +5,7 @@ import java.io.FileReader;
 import java.io.IOException;
 
 import ilog.concert.IloException;
+import util.Fingerprint;
 
 /**
  * UFLP算例对应的Java对象.
@@ -53,6 +54,14 @@ class Uflp {
         bfr.close();
     }
     
+    /**
+     * @return 算例内容的指纹.
+     */
+    String getFingerprint() {
+        return new Fingerprint("UFLP").update(warehouseNum).update(customerNum)
+                .update(fixedCost).update(supplyCost).toHexString();
+    }
+    
     int getFalicityNum() {
         return warehouseNum;
     }
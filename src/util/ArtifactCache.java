@@ -0,0 +1,102 @@
+package util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 本地文件缓存，保存只依赖于算例和参数的计算结果（如预处理结果、初始解），
+ * 重复求解同一算例时可直接读取. <br>
+ * Key 由算例指纹、结果名称和参数组成，见 {@link #key(String, String, Object...)}，
+ * 每个结果序列化后保存为缓存目录下的一个文件；缓存只是加速手段，读写失败时视为未命中.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+public class ArtifactCache {
+    private static final String FILE_SUFFIX = ".bin";
+
+    private final File directory;
+
+    /**
+     * Create a Instance ArtifactCache.
+     *
+     * @param directory 缓存目录，不存在时在第一次写入时创建
+     */
+    public ArtifactCache(String directory) {
+        this.directory = new File(directory);
+    }
+
+    /**
+     * 生成缓存的 Key.
+     *
+     * @param fingerprint 算例指纹，见 {@link Fingerprint}
+     * @param artifact 结果名称，只能包含字母、数字和 '-'
+     * @param params 影响结果的参数
+     * @return Key
+     */
+    public static String key(String fingerprint, String artifact, Object... params) {
+        if (!artifact.matches("[A-Za-z0-9-]+")) {
+            throw new IllegalArgumentException(String.format("Illegal artifact name %s", artifact));
+        }
+
+        String paramsHash = new Fingerprint("PARAMS").update(Arrays.deepToString(params)).toHexString();
+        return String.format("%s-%s-%s", fingerprint, artifact, paramsHash.substring(0, 16));
+    }
+
+    /**
+     * 读取缓存.
+     *
+     * @param key Key
+     * @param type 结果的类型
+     * @return 缓存的结果，未命中或读取失败时返回 null
+     */
+    public <T> T load(String key, Class<T> type) {
+        File file = new File(directory, key + FILE_SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+            Object value = ois.readObject();
+            return type.isInstance(value) ? type.cast(value) : null;
+        } catch (IOException | ClassNotFoundException e) {
+            // 文件损坏或格式过期，重新计算即可
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存，先写入临时文件再重命名，避免其他进程读到不完整的文件.
+     *
+     * @param key Key
+     * @param value 结果
+     */
+    public void store(String key, Serializable value) {
+        File file = new File(directory, key + FILE_SUFFIX);
+        File tmpFile = new File(directory, key + FILE_SUFFIX + ".tmp");
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException(String.format("Failed to create directory %s", directory.getPath()));
+            }
+
+            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(tmpFile))) {
+                oos.writeObject(value);
+            }
+
+            if (file.exists() && !file.delete() || !tmpFile.renameTo(file)) {
+                throw new IOException(String.format("Failed to rename %s", tmpFile.getPath()));
+            }
+        } catch (IOException e) {
+            tmpFile.delete();
+            System.err.println(String.format("Failed to cache %s: %s", key, e.getMessage()));
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 算例内容的 SHA-256 指纹，内容（包括数组长度和数值的二进制表示）完全相同的算例得到相同的指纹，
+ * 用作 {@link ArtifactCache} 的 Key.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+public class Fingerprint {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+    private final byte[] buffer = new byte[8];
+
+    /**
+     * Create a Instance Fingerprint.
+     *
+     * @param type 算例类型，如 "VRPTW"，避免不同问题的算例因数值相同而得到相同的指纹
+     */
+    public Fingerprint(String type) {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 所有 Java 平台都必须支持 SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        this.update(type);
+    }
+
+    public Fingerprint update(int value) {
+        for (int k = 0; k < 4; k++) {
+            buffer[k] = (byte) (value >>> (24 - 8 * k));
+        }
+        digest.update(buffer, 0, 4);
+        return this;
+    }
+
+    public Fingerprint update(long value) {
+        for (int k = 0; k < 8; k++) {
+            buffer[k] = (byte) (value >>> (56 - 8 * k));
+        }
+        digest.update(buffer, 0, 8);
+        return this;
+    }
+
+    public Fingerprint update(double value) {
+        return this.update(Double.doubleToLongBits(value));
+    }
+
+    public Fingerprint update(double[] values) {
+        this.update(values.length);
+        for (double value : values) {
+            this.update(value);
+        }
+        return this;
+    }
+
+    public Fingerprint update(double[][] values) {
+        this.update(values.length);
+        for (double[] row : values) {
+            this.update(row);
+        }
+        return this;
+    }
+
+    public Fingerprint update(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.update(bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    /**
+     * 计算指纹，调用后不能再添加内容.
+     *
+     * @return 64 位十六进制字符串
+     */
+    public String toHexString() {
+        byte[] hash = digest.digest();
+        char[] chars = new char[hash.length * 2];
+        for (int k = 0; k < hash.length; k++) {
+            chars[2 * k] = HEX_DIGITS[(hash[k] >>> 4) & 0xF];
+            chars[2 * k + 1] = HEX_DIGITS[hash[k] & 0xF];
+        }
+        return new String(chars);
+    }
+
+}
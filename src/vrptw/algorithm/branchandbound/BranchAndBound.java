@@ -13,8 +13,11 @@ import java.util.ArrayList;
 
 import vrptw.algorithm.VrptwExactAlgorithm;
 import vrptw.parameter.Parameters;
+import vrptw.problem.ArcMatrix;
+import vrptw.problem.SuccessorIndex;
 import vrptw.problem.Vertex;
 import vrptw.problem.Vrptw;
+import vrptw.problem.VrptwPreprocessor;
 import vrptw.solution.Path;
 import vrptw.solution.VrptwSolution;
 
@@ -28,7 +31,9 @@ import vrptw.solution.VrptwSolution;
  * @since JDK1.8
  */
 public class BranchAndBound implements VrptwExactAlgorithm {    
+    /** 预处理后的 VRPTW 算例. */
     private Vrptw vrptwIns;
+    private VrptwPreprocessor preprocessor;
     private int vertexNum;
     private int vehNum;
     /** false if arc(i, j) doesn't satisfy the capacity or time window constraints, true otherwise. */
@@ -50,17 +55,13 @@ public class BranchAndBound implements VrptwExactAlgorithm {
      * @throws IloException 
      */
     public BranchAndBound(Vrptw vrptwIns) throws IloException {                
-        this.vrptwIns = vrptwIns;
+        this.preprocessor = new VrptwPreprocessor(vrptwIns);
+        this.vrptwIns = preprocessor.preprocess();
         vertexNum = vrptwIns.getVertexNum();
         // TODO  可使用 Best known solution 的车辆数，加快求解速度，否则耗时容易过长
         vehNum = vrptwIns.getVehNum();
         
         isFeasibleArc = new boolean[vertexNum][vertexNum];
-        for (int i = 0; i < vertexNum; i++) {
-            for (int j = 0; j < vertexNum; j++) {
-                isFeasibleArc[i][j] = true;
-            }
-        }
         this.preprocessArcs();
         
         vrptwModel = new IloCplex();
@@ -74,6 +75,7 @@ public class BranchAndBound implements VrptwExactAlgorithm {
     public void solve() throws IloException {
         System.out.println("Branch and bound algorithm");
         System.out.println("--------------------------------------------");
+        System.out.println(preprocessor);
         
         final double startTime = System.currentTimeMillis();
         
@@ -121,7 +123,7 @@ public class BranchAndBound implements VrptwExactAlgorithm {
         }
         
         // objective
-        double[][] distMatrix = vrptwIns.getDistMatrix();
+        ArcMatrix distMatrix = vrptwIns.getDistMatrix();
         IloLinearNumExpr obj = vrptwModel.linearNumExpr();
         for (int i = 0; i < vertexNum; i++) {
             for (int j = 0; j < vertexNum; j++) {
@@ -130,7 +132,7 @@ public class BranchAndBound implements VrptwExactAlgorithm {
                 }
                 
                 for (int k = 0; k < vehNum; k++) {
-                    obj.addTerm(distMatrix[i][j], x[i][j][k]);
+                    obj.addTerm(distMatrix.get(i, j), x[i][j][k]);
                 }
                 
             }
@@ -214,13 +216,13 @@ public class BranchAndBound implements VrptwExactAlgorithm {
         
         // constraints 7
         double bigm = Parameters.BIG_M;
-        double[][] timeMatrix = vrptwIns.getTimeMatrix();
+        ArcMatrix timeMatrix = vrptwIns.getTimeMatrix();
         for (int k = 0; k < vehNum; k++) {
             for (int i = 0; i < vertexNum; i++) {
                 Vertex vi = vertexes.get(i);
                 for (int j = 0; j < vertexNum; j++) {
                     if (isFeasibleArc[i][j]) {
-                        IloNumExpr expr1 = vrptwModel.sum(s[i][k], vi.getServiceTime() + timeMatrix[i][j]);
+                        IloNumExpr expr1 = vrptwModel.sum(s[i][k], vi.getServiceTime() + timeMatrix.get(i, j));
                         expr1 = vrptwModel.sum(expr1, vrptwModel.prod(-1, s[j][k]));
                         IloNumExpr expr2 = vrptwModel.prod(bigm, vrptwModel.sum(1, vrptwModel.prod(-1, x[i][j][k])));
                         vrptwModel.addLe(expr1, expr2);
@@ -242,6 +244,29 @@ public class BranchAndBound implements VrptwExactAlgorithm {
             
         }
         
+        // constraints 9: 预处理得到的不相容客户对不能由同一辆车服务
+        for (int i = 1; i < vertexNum - 1; i++) {
+            for (int h = i + 1; h < vertexNum - 1; h++) {
+                if (vrptwIns.isCompatible(i, h)) {
+                    continue;
+                }
+                
+                for (int k = 0; k < vehNum; k++) {
+                    IloLinearNumExpr expr = vrptwModel.linearNumExpr();
+                    for (int j = 0; j < vertexNum; j++) {
+                        if (isFeasibleArc[i][j]) {
+                            expr.addTerm(1.0, x[i][j][k]);
+                        }
+                        if (isFeasibleArc[h][j]) {
+                            expr.addTerm(1.0, x[h][j][k]);
+                        }
+                    }
+                    vrptwModel.addLe(expr, 1);
+                }
+            }
+            
+        }
+        
     }
     
     private void setCplexParams() throws IloException {
@@ -255,37 +280,15 @@ public class BranchAndBound implements VrptwExactAlgorithm {
     }
     
     /**
-     * find infeasible arcs.
+     * find feasible arcs, only the arcs kept by {@link VrptwPreprocessor} are feasible, 
+     * the arcs end at start depot or start from dummy depot are excluded as well.
      */
     private void preprocessArcs() {
-        ArrayList<Vertex> vertexes = vrptwIns.getVertexes();
-        double[][] timeMatrix = vrptwIns.getTimeMatrix();
-        double capacity = vrptwIns.getVehicle().getCapacity();
-        
-        // find the arcs which don't satisfy the capacity or time window constraints
+        SuccessorIndex successorIndex = vrptwIns.getSuccessorIndex();
         for (int i = 0; i < vertexNum; i++) {
-            Vertex v1 = vertexes.get(i);
-            for (int j = 0; j < vertexNum; j++) {
-                if (i == j) {
-                    isFeasibleArc[i][j] = false;
-                    continue;
-                }
-                
-                Vertex v2 = vertexes.get(j);
-                if (v1.getEarliestTime() + v1.getServiceTime() + timeMatrix[i][j] > v2.getLatestTime() 
-                        || v1.getDemand() + v2.getDemand() > capacity) {
-                    isFeasibleArc[i][j] = false;
-                }
-                
+            for (int j : successorIndex.getSuccessors(i)) {
+                isFeasibleArc[i][j] = true;
             }
-            
-        }
-        
-        for (int n = 0; n < vertexNum; n++) {
-            // arc start end at start depot is infeasible
-            isFeasibleArc[n][0] = false;
-            // arc start from dummy depot is infeasible
-            isFeasibleArc[vertexNum - 1][n] = false;
         }
         
     }
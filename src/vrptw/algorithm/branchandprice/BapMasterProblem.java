@@ -15,6 +15,7 @@ import java.util.Map;
 import vrptw.algorithm.solomoninsertion.SolomonInsertion;
 import vrptw.parameter.Parameters;
 import vrptw.problem.Arc;
+import vrptw.problem.ArcMatrix;
 import vrptw.problem.Vertex;
 import vrptw.problem.Vrptw;
 import vrptw.solution.Path;
@@ -136,7 +137,7 @@ class BapMasterProblem {
         // choose the fractional arc with max {c[i][j] * ( min {flow[i][j], |1 - flow[i][j]|})}
         double maxCost = Double.NEGATIVE_INFINITY;
         double cost;
-        double[][] distmatrix = vrptwIns.getDistMatrix();
+        ArcMatrix distmatrix = vrptwIns.getDistMatrix();
         for (int i = 0; i < vertexNum; i++) {
             for (int j = 0; j < vertexNum; j++) {
                 if (flow[i][j] < Parameters.EPS) {
@@ -145,7 +146,7 @@ class BapMasterProblem {
                 
                 if (flow[i][j] < 1 - Parameters.EPS || flow[i][j] > 1 + Parameters.EPS) {
                     cost = Math.min(flow[i][j], Math.abs(1 - flow[i][j]));
-                    cost = cost * distmatrix[i][j];
+                    cost = cost * distmatrix.get(i, j);
                     if (cost > maxCost) {
                         maxCost = cost;
                         branchArc = new Arc(i, j);
@@ -186,7 +187,7 @@ class BapMasterProblem {
      * @param timeMatrix 考虑 branchArc 后的时间矩阵
      * @return 初始路径数组
      */
-    Path[] generateInitailPaths(Vrptw vrptwIns, double[][] timeMatrix) {
+    Path[] generateInitailPaths(Vrptw vrptwIns, ArcMatrix timeMatrix) {
         // 调用 Solomon Insertion 生成初始解
         SolomonInsertion i1 = new SolomonInsertion(vrptwIns, timeMatrix);
         
@@ -8,6 +8,7 @@ import java.util.List;
 import vrptw.algorithm.subproblem.AbstractPriceProblem;
 import vrptw.parameter.Parameters;
 import vrptw.problem.Arc;
+import vrptw.problem.ArcMatrix;
 import vrptw.problem.Vrptw;
 import vrptw.solution.Path;
 
@@ -91,7 +92,7 @@ class BapNode implements Comparable<BapNode> {
         
         // update the time matrix
         ArrayList<BranchArc> historyBranchArcs = this.getHistoryBranchArcs();
-        double[][] timeMatrix = this.calTimeMatrix(historyBranchArcs);
+        ArcMatrix timeMatrix = this.calTimeMatrix(historyBranchArcs);
                 
         // column generation process
         int countIter = 0;
@@ -126,6 +127,11 @@ class BapNode implements Comparable<BapNode> {
             priceProblem.updateTimeMatrix(timeMatrix);
             priceProblem.solve(masterProblem.getDualValOfCusCstr());
             
+            // 启发式求解没有找到 revised cost 为负的路径时，需要精确求解才能确认 RMLP 已经最优
+            if (priceProblem.getRevisedCostOfShortestPath() > -Parameters.EPS && !priceProblem.isSolvedExactly()) {
+                priceProblem.solveExactly(masterProblem.getDualValOfCusCstr());
+            }
+            
             // if the reduced cost > 0, MLP's solution found, stop; otherwise, add column
             double reduceCost = priceProblem.getRevisedCostOfShortestPath();
             if (reduceCost > -Parameters.EPS) {
@@ -237,19 +243,14 @@ class BapNode implements Comparable<BapNode> {
      * @param historyBranchArcs all branch arcs of current node's ancestors in the branch and bound tree
      * @return new time matrix after branch
      */
-    private double[][] calTimeMatrix(List<BranchArc> historyBranchArcs) {
+    private ArcMatrix calTimeMatrix(List<BranchArc> historyBranchArcs) {
         if (parent == null) {
             return originVrptwIns.getTimeMatrix();
         }
         
-        // time matrix initialization
+        // time matrix initialization, copy first since the time matrix may share its values with the dist matrix
         int vertexNum = originVrptwIns.getVertexNum();
-        double[][] timeMatrix = new double[vertexNum][vertexNum];
-        for (int i = 0; i < vertexNum; i++) {
-            for (int j = 0; j < vertexNum; j++) {
-                timeMatrix[i][j] = originVrptwIns.getTimeMatrix()[i][j];
-            }
-        }
+        ArcMatrix timeMatrix = originVrptwIns.getTimeMatrix().copy();
         
         // calculate new time matrix
         for (BranchArc arc: historyBranchArcs) {
@@ -257,7 +258,7 @@ class BapNode implements Comparable<BapNode> {
             int toVertexId = arc.getToVertexId();
             // branch value = 0
             if (arc.branchValue == 0) {
-                timeMatrix[fromVertexId][toVertexId] = Parameters.BIG_TRAVEL_TIME;
+                timeMatrix.set(fromVertexId, toVertexId, Parameters.BIG_TRAVEL_TIME);
                 continue;
             }
             
@@ -268,7 +269,7 @@ class BapNode implements Comparable<BapNode> {
             // to be big enough except branch arc, so the vehicle must pass branch arc to serve "toVertex"
             if (fromVertexId == 0) {
                 for (int i = 1; i < vertexNum; i++) {
-                    timeMatrix[i][toVertexId] = Parameters.BIG_TRAVEL_TIME;
+                    timeMatrix.set(i, toVertexId, Parameters.BIG_TRAVEL_TIME);
                 }
                 continue;
             }
@@ -277,7 +278,7 @@ class BapNode implements Comparable<BapNode> {
             // to be big enough except branch arc, so the vehicle must pass branch arc after serve "fromVertex"
             if (toVertexId == vertexNum - 1) {
                 for (int j = 0; j < vertexNum - 1; j++) {
-                    timeMatrix[fromVertexId][j] = Parameters.BIG_TRAVEL_TIME;
+                    timeMatrix.set(fromVertexId, j, Parameters.BIG_TRAVEL_TIME);
                 }
                 continue;
             }
@@ -285,22 +286,22 @@ class BapNode implements Comparable<BapNode> {
             // 3. both the start and end vertex of branch arc are customer
             int j;
             for (j = 0; j < toVertexId; j++) {
-                timeMatrix[fromVertexId][j] = Parameters.BIG_TRAVEL_TIME;
+                timeMatrix.set(fromVertexId, j, Parameters.BIG_TRAVEL_TIME);
             }
             for (j = j + 1; j < vertexNum; j++) {
-                timeMatrix[fromVertexId][j] = Parameters.BIG_TRAVEL_TIME;
+                timeMatrix.set(fromVertexId, j, Parameters.BIG_TRAVEL_TIME);
             }
             
             int i;
             for (i = 0; i < fromVertexId; i++) {
-                timeMatrix[i][toVertexId] = Parameters.BIG_TRAVEL_TIME;
+                timeMatrix.set(i, toVertexId, Parameters.BIG_TRAVEL_TIME);
             }
             for (i = i + 1; i < vertexNum; i++) {
-                timeMatrix[i][toVertexId] = Parameters.BIG_TRAVEL_TIME;
+                timeMatrix.set(i, toVertexId, Parameters.BIG_TRAVEL_TIME);
             }
             
             // forbid the arc in the opposite direction
-            timeMatrix[toVertexId][fromVertexId] = Parameters.BIG_TRAVEL_TIME;
+            timeMatrix.set(toVertexId, fromVertexId, Parameters.BIG_TRAVEL_TIME);
             
         }
         
@@ -2,8 +2,11 @@ package vrptw.algorithm.branchandprice;
 
 import ilog.concert.IloException;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.PriorityQueue;
 
+import util.ArtifactCache;
 import vrptw.algorithm.VrptwExactAlgorithm;
 import vrptw.algorithm.solomoninsertion.SolomonInsertion;
 import vrptw.algorithm.subproblem.AbstractPriceProblem;
@@ -11,6 +14,7 @@ import vrptw.algorithm.subproblem.pulsealgorithm.EspptwccViaPulse;
 import vrptw.parameter.Parameters;
 import vrptw.problem.Arc;
 import vrptw.problem.Vrptw;
+import vrptw.problem.VrptwPreprocessor;
 import vrptw.solution.Path;
 import vrptw.solution.VrptwSolution;
 
@@ -22,7 +26,9 @@ import vrptw.solution.VrptwSolution;
  * @since JDK1.8
  */
 public class BranchAndPrice implements VrptwExactAlgorithm {
+    /** 预处理后的 VRPTW 算例. */
     private Vrptw originVrptwIns;
+    private VrptwPreprocessor preprocessor;
     
     /** Price Problem. */
     private AbstractPriceProblem priceProblem;
@@ -48,11 +54,14 @@ public class BranchAndPrice implements VrptwExactAlgorithm {
      * @throws IloException 
      */
     public BranchAndPrice(Vrptw vrptwIns) throws IloException {
-        this.originVrptwIns = vrptwIns;
+        this.preprocessor = new VrptwPreprocessor(vrptwIns);
+        this.originVrptwIns = preprocessor.preprocess();
         
         // Price and master Problem Initialization
-        this.priceProblem = new EspptwccViaPulse(vrptwIns);
-        this.masterProblem = new BapMasterProblem(vrptwIns);
+        EspptwccViaPulse pulse = new EspptwccViaPulse(originVrptwIns);
+        pulse.setBudget(Parameters.PULSE_NUM_BUDGET, Parameters.PULSE_TIME_BUDGET);
+        this.priceProblem = pulse;
+        this.masterProblem = new BapMasterProblem(originVrptwIns);
         
         this.upperBound = Parameters.BB_INITIAL_UPPERBOUND;
         
@@ -64,19 +73,21 @@ public class BranchAndPrice implements VrptwExactAlgorithm {
     public void solve() throws IloException {
         System.out.println("Branch and price algorithm");
         System.out.println("--------------------------------------------");
+        System.out.println(preprocessor);
         
         final double startTime = System.currentTimeMillis();
         
         // use Solomon Insertion to generate initial solution
-        SolomonInsertion i1 = new SolomonInsertion(originVrptwIns, originVrptwIns.getTimeMatrix());
-        
-        i1.constructRoutes();
-        Path[] initialPaths = i1.getPaths();
-        for (int i = 0; i < initialPaths.length; i++) {
-            masterProblem.addColumn(initialPaths[i]);
+        InitialSolution initialSol = this.constructInitialSolution();
+        for (int[] route : initialSol.routes) {
+            ArrayList<Integer> vertexIds = new ArrayList<>(route.length);
+            for (int vertexId : route) {
+                vertexIds.add(vertexId);
+            }
+            masterProblem.addColumn(new Path(originVrptwIns, vertexIds));
         }
         //  use the solution of Solomon Insertion as upper bound 
-        this.upperBound = i1.getCost();
+        this.upperBound = initialSol.cost;
         
         // Solve initial RMLP
         BapNode root = new BapNode(originVrptwIns);
@@ -114,6 +125,38 @@ public class BranchAndPrice implements VrptwExactAlgorithm {
         masterProblem.end();
     }
     
+    /**
+     * 通过 Solomon Insertion 构造初始解，
+     * 开启 {@link Parameters#USE_ARTIFACT_CACHE} 时按算例指纹和插入参数保存在本地文件缓存中.
+     * 
+     * @return 初始解
+     */
+    private InitialSolution constructInitialSolution() {
+        ArtifactCache cache = new ArtifactCache(Parameters.ARTIFACT_CACHE_DIR);
+        String key = ArtifactCache.key(originVrptwIns.getFingerprint(), "solomon-i1", Parameters.ALPHA1,
+                Parameters.ALPHA2, Parameters.MIU, Parameters.LAMBDA, Parameters.RANDOM_SEED);
+        if (Parameters.USE_ARTIFACT_CACHE) {
+            InitialSolution initialSol = cache.load(key, InitialSolution.class);
+            if (initialSol != null) {
+                return initialSol;
+            }
+        }
+        
+        SolomonInsertion i1 = new SolomonInsertion(originVrptwIns, originVrptwIns.getTimeMatrix());
+        i1.constructRoutes();
+        Path[] paths = i1.getPaths();
+        int[][] routes = new int[paths.length][];
+        for (int i = 0; i < paths.length; i++) {
+            routes[i] = paths[i].getVertexIds().stream().mapToInt(Integer::intValue).toArray();
+        }
+        
+        InitialSolution initialSol = new InitialSolution(routes, i1.getCost());
+        if (Parameters.USE_ARTIFACT_CACHE) {
+            cache.store(key, initialSol);
+        }
+        return initialSol;
+    }
+    
     /**
      * add given node to Priority Queue when it's LP feasible and having a LP objective smaller the upper bound.
      * 
@@ -160,4 +203,19 @@ public class BranchAndPrice implements VrptwExactAlgorithm {
                 this.bestNode.getDepth(), this.upperBound));
     }
     
+    /**
+     * 初始解，只保存节点访问序列和成本，可以保存在 {@link ArtifactCache} 中.
+     */
+    private static class InitialSolution implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        final int[][] routes;
+        final double cost;
+        
+        InitialSolution(int[][] routes, double cost) {
+            this.routes = routes;
+            this.cost = cost;
+        }
+    }
+    
 }
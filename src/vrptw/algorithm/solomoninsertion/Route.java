@@ -42,12 +42,12 @@ class Route {
     void addEndDepot() {
         int endDepotId = SolomonInsertion.vrptwIns.getVertexNum() - 1;
         
-        cost += SolomonInsertion.vrptwIns.getDistMatrix()[activities.get(cusNum).vertexId][endDepotId];
+        cost += SolomonInsertion.vrptwIns.getDistMatrix().get(activities.get(cusNum).vertexId, endDepotId);
 
         // 获取最后一个节点的信息
         Activity lastActivity = activities.get(cusNum);
         // 到达时间 = 离开上一个客户的时间 + 行驶时间getTimeBetween
-        double arrTime = lastActivity.departTime + SolomonInsertion.timeMatrix[lastActivity.vertexId][endDepotId];
+        double arrTime = lastActivity.departTime + SolomonInsertion.timeMatrix.get(lastActivity.vertexId, endDepotId);
         Activity newActivity = new Activity(endDepotId, arrTime);
         activities.add(newActivity);
     }
@@ -59,13 +59,13 @@ class Route {
      */
     void addVertexToEnd(int addVertexId) {
         // 注意返回配送中心的部分暂不计算
-        cost += SolomonInsertion.vrptwIns.getDistMatrix()[activities.get(cusNum).vertexId][addVertexId];
+        cost += SolomonInsertion.vrptwIns.getDistMatrix().get(activities.get(cusNum).vertexId, addVertexId);
         load += SolomonInsertion.vrptwIns.getVertexes().get(addVertexId).getDemand();
         
         // 获取最后一个节点的信息
         Activity lastActivity = activities.get(cusNum);
         // 到达时间 = 离开上一个客户的时间 + 行驶时间getTimeBetween
-        double arrTime = lastActivity.departTime + SolomonInsertion.timeMatrix[lastActivity.vertexId][addVertexId];
+        double arrTime = lastActivity.departTime + SolomonInsertion.timeMatrix.get(lastActivity.vertexId, addVertexId);
         Activity newActivity = new Activity(addVertexId, arrTime);
         activities.add(newActivity);
 
@@ -92,14 +92,14 @@ class Route {
 
         // 到达时间 = 离开上一个客户的时间 + 行驶时间
         Activity preActivity = activities.get(pos);
-        double arrTime = preActivity.departTime + SolomonInsertion.timeMatrix[preActivity.vertexId][cusId];
+        double arrTime = preActivity.departTime + SolomonInsertion.timeMatrix.get(preActivity.vertexId, cusId);
         Activity newActivity = new Activity(cusId, arrTime);
         
         // 删除一条弧，增加两条弧
         Activity nextActivity = activities.get(pos + 1);
-        cost = cost - SolomonInsertion.vrptwIns.getDistMatrix()[preActivity.vertexId][nextActivity.vertexId]
-                + SolomonInsertion.vrptwIns.getDistMatrix()[preActivity.vertexId][cusId]
-                + SolomonInsertion.vrptwIns.getDistMatrix()[cusId][nextActivity.vertexId];
+        cost = cost - SolomonInsertion.vrptwIns.getDistMatrix().get(preActivity.vertexId, nextActivity.vertexId)
+                + SolomonInsertion.vrptwIns.getDistMatrix().get(preActivity.vertexId, cusId)
+                + SolomonInsertion.vrptwIns.getDistMatrix().get(cusId, nextActivity.vertexId);
 
         load += SolomonInsertion.vrptwIns.getVertexes().get(cusId).getDemand();
 
@@ -130,13 +130,13 @@ class Route {
         // 删除最后一个被服务的客户
         if (pos == cusNum) {
             // 删除一条弧
-            cost = cost - SolomonInsertion.vrptwIns.getDistMatrix()[preVertexId][vertexToRemoveId];
+            cost = cost - SolomonInsertion.vrptwIns.getDistMatrix().get(preVertexId, vertexToRemoveId);
         } else {
             // 删除两条弧，增加一条狐
             int nextVertexId = activities.get(pos + 1).vertexId;
-            cost = cost - SolomonInsertion.vrptwIns.getDistMatrix()[preVertexId][vertexToRemoveId]
-                    - SolomonInsertion.vrptwIns.getDistMatrix()[vertexToRemoveId][nextVertexId]
-                    + SolomonInsertion.vrptwIns.getDistMatrix()[preVertexId][nextVertexId];
+            cost = cost - SolomonInsertion.vrptwIns.getDistMatrix().get(preVertexId, vertexToRemoveId)
+                    - SolomonInsertion.vrptwIns.getDistMatrix().get(vertexToRemoveId, nextVertexId)
+                    + SolomonInsertion.vrptwIns.getDistMatrix().get(preVertexId, nextVertexId);
         }
         
         load -= SolomonInsertion.vrptwIns.getVertexes().get(vertexToRemoveId).getDemand();
@@ -163,7 +163,7 @@ class Route {
         
         Vertex cus = SolomonInsertion.vrptwIns.getVertexes().get(cusId);
         Activity preActivity = activities.get(pos);
-        double time = preActivity.departTime + SolomonInsertion.timeMatrix[preActivity.vertexId][cusId];
+        double time = preActivity.departTime + SolomonInsertion.timeMatrix.get(preActivity.vertexId, cusId);
         
         // 判断插入的客户本身的时间窗是否被违反
         if (time > cus.getLatestTime()) {
@@ -182,9 +182,9 @@ class Route {
         for (int i = pos + 1; i <= cusNum; i++) {
             // 模拟到达 i 处客户的时间
             if (i == pos + 1) {
-                time += SolomonInsertion.timeMatrix[cusId][activities.get(pos + 1).vertexId];
+                time += SolomonInsertion.timeMatrix.get(cusId, activities.get(pos + 1).vertexId);
             } else {
-                time += SolomonInsertion.timeMatrix[activities.get(i - 1).vertexId][activities.get(i).vertexId];
+                time += SolomonInsertion.timeMatrix.get(activities.get(i - 1).vertexId, activities.get(i).vertexId);
             }
             
             int currVertexId = activities.get(i).vertexId;
@@ -206,9 +206,9 @@ class Route {
         // 模拟返回配送中心的时间
         int endDepotId = SolomonInsertion.vrptwIns.getVertexNum() - 1;
         if (pos != cusNum) {
-            time += SolomonInsertion.timeMatrix[activities.get(cusNum).vertexId][endDepotId];
+            time += SolomonInsertion.timeMatrix.get(activities.get(cusNum).vertexId, endDepotId);
         } else {
-            time += SolomonInsertion.timeMatrix[cusId][endDepotId];
+            time += SolomonInsertion.timeMatrix.get(cusId, endDepotId);
         }
         
         if (time > SolomonInsertion.vrptwIns.getVertexes().get(endDepotId).getLatestTime()) {
@@ -225,7 +225,7 @@ class Route {
         double demand = 0;
         for (int i = 1; i <= cusNum; i++) {
             // 到达第 i 个客户的时间
-            time += SolomonInsertion.timeMatrix[vertexIds.get(i - 1)][vertexIds.get(i)];
+            time += SolomonInsertion.timeMatrix.get(vertexIds.get(i - 1), vertexIds.get(i));
             Vertex vertex = SolomonInsertion.vrptwIns.getVertexes().get(vertexIds.get(i));
             
             demand += vertex.getDemand();
@@ -247,7 +247,7 @@ class Route {
         
         // 模拟到达配送中心的时间
         int endDepotId = SolomonInsertion.vrptwIns.getVertexNum() - 1;
-        time += SolomonInsertion.timeMatrix[activities.get(cusNum).vertexId][endDepotId];
+        time += SolomonInsertion.timeMatrix.get(activities.get(cusNum).vertexId, endDepotId);
         if (time > SolomonInsertion.vrptwIns.getVertexes().get(endDepotId).getLatestTime()) {
             return false;
         }
@@ -271,7 +271,7 @@ class Route {
             Activity lastActivity = activities.get(cusNum);
             // 到达时间 = 离开上一个客户的时间 + 行驶时间getTimeBetween
             int endDepotId = SolomonInsertion.vrptwIns.getVertexNum() - 1;
-            return lastActivity.departTime + SolomonInsertion.timeMatrix[lastActivity.vertexId][endDepotId];
+            return lastActivity.departTime + SolomonInsertion.timeMatrix.get(lastActivity.vertexId, endDepotId);
         }
 
         return activities.get(pos).startTime;
@@ -293,7 +293,7 @@ class Route {
             Activity currActivity = activities.get(i);
             
             double changedArrTime = preActivity.departTime 
-                    + SolomonInsertion.timeMatrix[preActivity.vertexId][currActivity.vertexId];
+                    + SolomonInsertion.timeMatrix.get(preActivity.vertexId, currActivity.vertexId);
 
             isDepartTimeChanged = currActivity.isDepartTimeChanged(changedArrTime);
         }
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Random;
 
 import vrptw.parameter.Parameters;
+import vrptw.problem.ArcMatrix;
 import vrptw.problem.Vertex;
 import vrptw.problem.Vrptw;
 import vrptw.solution.Path;
@@ -21,7 +22,7 @@ public class SolomonInsertion {
     static Vrptw vrptwIns;
     
     /** 时间矩阵，对 Arc 进行分支的过程中 timeMatrix 会更新，并且需要调用 Solomon Insertion 生成初始解. */
-    static double[][] timeMatrix;
+    static ArcMatrix timeMatrix;
     
     private int cusNum;
     private int vertexNum;
@@ -38,7 +39,7 @@ public class SolomonInsertion {
      * @param vrptwIns VRPTW instance
      * @param timeMatrix 新的时间矩阵 
      */
-    public SolomonInsertion(Vrptw vrptwIns, double[][] timeMatrix) {
+    public SolomonInsertion(Vrptw vrptwIns, ArcMatrix timeMatrix) {
         SolomonInsertion.vrptwIns = vrptwIns;
         SolomonInsertion.timeMatrix = timeMatrix;
         
@@ -63,8 +64,8 @@ public class SolomonInsertion {
         // 为不能第一个被访问、不能最后一个被访问的客户生成路径，可能存在同一个客户在多条路径上的情况
         for (int i = 1; i < vertexNum - 1; i++) {
             Route r;
-            if (timeMatrix[0][i] == Double.MAX_VALUE) {
-                if (timeMatrix[i][vertexNum - 1] == Double.MAX_VALUE) {
+            if (timeMatrix.get(0, i) == Double.MAX_VALUE) {
+                if (timeMatrix.get(i, vertexNum - 1) == Double.MAX_VALUE) {
                     // 不能第一个被访问，也不能最后一个访问，找一条形如 startDepot-v1-i-v2-endDepot 的可行路径
                     r = this.generateRouteForMiddleCus(i);
                 } else {
@@ -81,7 +82,7 @@ public class SolomonInsertion {
                 continue;
             }
             
-            if (timeMatrix[i][vertexNum - 1] == Double.MAX_VALUE) {
+            if (timeMatrix.get(i, vertexNum - 1) == Double.MAX_VALUE) {
                 // 不能最后一个被访问，找一条形如 startDepot-v1-i-endDepot 的可行路径
                 r = this.generateRouteWithForFirstCus(i);
                 
@@ -317,9 +318,9 @@ public class SolomonInsertion {
             r.removeCustomer(pos + 1);
         }
         
-        double[][] distMatrix = vrptwIns.getDistMatrix();
-        double cost11 = distMatrix[preVertexId][cusId] + distMatrix[cusId][nextVertexId] 
-                - Parameters.MIU * distMatrix[preVertexId][nextVertexId];
+        ArcMatrix distMatrix = vrptwIns.getDistMatrix();
+        double cost11 = distMatrix.get(preVertexId, cusId) + distMatrix.get(cusId, nextVertexId) 
+                - Parameters.MIU * distMatrix.get(preVertexId, nextVertexId);
         
         double cost1 = Parameters.ALPHA1 * cost11 + Parameters.ALPHA2 * (nextCusStartTime - nextCusStartTimeBefore);
         
@@ -339,7 +340,7 @@ public class SolomonInsertion {
             return Double.NEGATIVE_INFINITY;
         }
         
-        double saving2 = Parameters.LAMBDA * vrptwIns.getDistMatrix()[0][cusId] - cost1;
+        double saving2 = Parameters.LAMBDA * vrptwIns.getDistMatrix().get(0, cusId) - cost1;
         return saving2;
     }
         
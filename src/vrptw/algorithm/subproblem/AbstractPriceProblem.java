@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Map;
 
 import vrptw.parameter.Parameters;
+import vrptw.problem.ArcMatrix;
+import vrptw.problem.SuccessorIndex;
 import vrptw.problem.Vrptw;
 import vrptw.solution.Path;
 
@@ -19,8 +21,17 @@ public abstract class AbstractPriceProblem {
     protected final int vertexNum;
     protected final Vrptw vrptwIns;
 
-    protected double[][] timeMatrix;
-    protected double[][] revisedCostMatrix;
+    protected ArcMatrix timeMatrix;
+    protected ArcMatrix revisedCostMatrix;
+    /** 可行后继节点索引，已屏蔽分支过程中被禁止的弧. */
+    protected SuccessorIndex successorIndex;
+    /** 各节点当前的时间窗，时间窗分支后由 {@link #updateTimeWindows(Vrptw)} 更新，注意不要修改. */
+    protected double[] earliestTimes;
+    protected double[] latestTimes;
+    /** 各节点之后可能出现在同一条路径上的节点的位图，见 {@link Vrptw#getFollowerMask()}. */
+    protected long[] followerMask;
+    /** 位图中每个节点所占的 long 的数量. */
+    protected final int maskWordNum;
     
     protected ArrayList<Path> shortestPaths;
     /** 被对偶变量修改后的最短路径的成本. */
@@ -36,6 +47,13 @@ public abstract class AbstractPriceProblem {
         
         vertexNum = originVrptwIns.getVertexNum();
         capacity = originVrptwIns.getVehicle().getCapacity();
+        
+        timeMatrix = originVrptwIns.getTimeMatrix();
+        successorIndex = originVrptwIns.getSuccessorIndex();
+        earliestTimes = originVrptwIns.getEarliestTimes();
+        latestTimes = originVrptwIns.getLatestTimes();
+        followerMask = originVrptwIns.getFollowerMask();
+        maskWordNum = originVrptwIns.getMaskWordNum();
         shortestPaths = new ArrayList<>(Parameters.INITIAL_CAPACITY);
     }
     
@@ -44,8 +62,14 @@ public abstract class AbstractPriceProblem {
      * 
      * @param timeMatrix time matrix
      */
-    public void updateTimeMatrix(double[][] timeMatrix) {
+    public void updateTimeMatrix(ArcMatrix timeMatrix) {
+        // 列生成的每次迭代都会传入同一个时间矩阵，无需重复屏蔽
+        if (this.timeMatrix == timeMatrix) {
+            return;
+        }
+        
         this.timeMatrix = timeMatrix;
+        this.updateSuccessorIndex(vrptwIns);
     }
     
     /**
@@ -62,11 +86,56 @@ public abstract class AbstractPriceProblem {
      */
     public abstract void solve(Map<Integer, Double> lambdas);
     
+    /**
+     * 精确求解 price problem，忽略求解的预算等启发式设置，默认与 {@link #solve(Map)} 相同.
+     * 
+     * @param lambdas dual values of RMLP
+     */
+    public void solveExactly(Map<Integer, Double> lambdas) {
+        this.solve(lambdas);
+    }
+    
+    /**
+     * 上一次求解是否为精确求解：启发式求解找到的路径可以作为列加入 RMLP，
+     * 但没有找到 revised cost 为负的路径时不能说明 RMLP 已经最优，需要调用 {@link #solveExactly(Map)}.
+     * 
+     * @return 上一次求解是否为精确求解
+     */
+    public boolean isSolvedExactly() {
+        return true;
+    }
+    
     /**
      * 重置相关变量，准备下一次求解.
      */
     protected abstract void reset();
     
+    /**
+     * 时间窗分支后更新 {@link #earliestTimes}、{@link #latestTimes}、{@link #followerMask} 和 {@link #successorIndex}，
+     * 节点的需求和服务时间不受时间窗分支的影响，无需更新.
+     * 
+     * @param ins VRPTW instance
+     */
+    protected void updateTimeWindows(Vrptw ins) {
+        earliestTimes = ins.getEarliestTimes();
+        latestTimes = ins.getLatestTimes();
+        followerMask = ins.getFollowerMask();
+        this.updateSuccessorIndex(ins);
+    }
+    
+    /**
+     * 根据给定算例的可行后继节点索引和当前的时间矩阵（屏蔽被禁止的弧）更新 {@link #successorIndex}.
+     * 
+     * @param ins VRPTW instance
+     */
+    protected void updateSuccessorIndex(Vrptw ins) {
+        if (timeMatrix == ins.getTimeMatrix()) {
+            successorIndex = ins.getSuccessorIndex();
+        } else {
+            successorIndex = ins.getSuccessorIndex().mask(timeMatrix);
+        }
+    }
+    
     /**
      * update the dual values and the revisedCost.
      * 
@@ -79,17 +148,15 @@ public abstract class AbstractPriceProblem {
                     String.format("The lenght of lambda should be %d", vrptwIns.getCusNum()));
         }
         
-        revisedCostMatrix = new double[vertexNum][vertexNum];
-        for (int i = 0; i < vertexNum; i++) {
-            for (int j = 0; j < vertexNum; j++) {
-                revisedCostMatrix[i][j] = vrptwIns.getDistMatrix()[i][j];
-            }
+        // 重复利用已分配的数组
+        if (revisedCostMatrix == null) {
+            revisedCostMatrix = vrptwIns.getDistMatrix().copy();
+        } else {
+            revisedCostMatrix.copyFrom(vrptwIns.getDistMatrix());
         }
         
         for (Map.Entry<Integer, Double> entry: newDualValues.entrySet()) {
-            for (int j = 0; j < vertexNum; j++) {
-                revisedCostMatrix[entry.getKey()][j] = revisedCostMatrix[entry.getKey()][j] - entry.getValue();
-            }
+            revisedCostMatrix.addToRow(entry.getKey(), -entry.getValue());
         }
         
     }
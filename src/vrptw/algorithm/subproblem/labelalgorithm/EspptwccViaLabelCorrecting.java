@@ -23,6 +23,7 @@ import vrptw.solution.Path;
  * @since JDK1.8
  */
 public class EspptwccViaLabelCorrecting extends AbstractPriceProblem implements LabelAlgorithm {
+    /** 原算例中的节点，只用于读取需求和服务时间，时间窗见 {@link #earliestTimes} 和 {@link #latestTimes}. */
     private Vertex[] vertexes;
     
     /** 待处理的节点队列. */
@@ -55,10 +56,7 @@ public class EspptwccViaLabelCorrecting extends AbstractPriceProblem implements
     
     @Override
     public void updateVrptwIns(Vrptw newVrptwIns) {
-        vertexes = new Vertex[vertexNum];
-        for (int i = 0; i < vertexNum; i++) {
-            vertexes[i] = newVrptwIns.getVertexes().get(i);
-        }
+        this.updateTimeWindows(newVrptwIns);
     }
         
     /**
@@ -88,12 +86,9 @@ public class EspptwccViaLabelCorrecting extends AbstractPriceProblem implements
             int currVertexId = vertexeToTreat.poll();
             
             labelExtendedFromCurrToNext = new ArrayList<>(Parameters.INITIAL_CAPACITY);
-            for (int j = 0; j < vertexNum; j++) {
+            for (int j : successorIndex.getSuccessors(currVertexId)) {
                 // Step 2: Exploration of the successor for all label on current vertex
-                // all vertexes except the arc with Double.Max_Value
-                if (timeMatrix[currVertexId][j] == Double.MAX_VALUE) {
-                    continue;
-                }
+                // only the feasible arcs which are not forbidden by branching
                 for (AbstractLabel label : labelList.get(currVertexId)) {
                     // Extend to the reachable vertexes
                     this.labelExtension(label, j);
@@ -131,7 +126,7 @@ public class EspptwccViaLabelCorrecting extends AbstractPriceProblem implements
         // Extend to the reachable vertexes
         EsppcctwLabel currentLabel = (EsppcctwLabel) currLabel;
         
-        if (currentLabel.isVertexUnreachable[nextVertexId]) {
+        if (currentLabel.isUnreachable(nextVertexId)) {
             return;
         }
         
@@ -140,13 +135,13 @@ public class EspptwccViaLabelCorrecting extends AbstractPriceProblem implements
         
         // Attention: add service time
         double time = currentLabel.time + vertexes[currentLabel.vertexId].getServiceTime()
-                + timeMatrix[currentLabel.vertexId][nextVertexId];
+                + timeMatrix.get(currentLabel.vertexId, nextVertexId);
         
-        if (time < vertexes[nextVertexId].getEarliestTime()) {
-            time = vertexes[nextVertexId].getEarliestTime();
+        if (time < earliestTimes[nextVertexId]) {
+            time = earliestTimes[nextVertexId];
         }
         
-        double cost = currentLabel.cost + revisedCostMatrix[currentLabel.vertexId][nextVertexId];
+        double cost = currentLabel.cost + revisedCostMatrix.get(currentLabel.vertexId, nextVertexId);
         EsppcctwLabel labelExtended = new EsppcctwLabel(cost, time, demand, nextVertexId, currentLabel);
         
         this.labelExtendedFromCurrToNext.add(labelExtended);
@@ -232,23 +227,23 @@ public class EspptwccViaLabelCorrecting extends AbstractPriceProblem implements
     /**
      * ESPPTWCC 专用 Label，增加两类资源：<br>
      * 1 访问过的节点的数量 <br>
-     * 2 visitation vector，已经访问过的点为 1，未访问的为 0.
+     * 2 visitation vector，已经访问过的点为 1，未访问的为 0，以位图存储，优超判别时按 long 比较.
      * 
      * @author Xiong Wangqi
      * @version V1.0
      * @since JDK1.8
      */
     private class EsppcctwLabel extends AbstractLabel {
-        /** 不可达的节点对应 true，可达对应 false. */
-        boolean[] isVertexUnreachable;
+        /** 不可达节点的位图，节点 j 对应第 j / 64 个 long 的第 j % 64 位，不可达为 1，可达为 0. */
+        long[] unreachableMask;
         /** 不可达（资源约束不满足）的节点的数量，标签对应路径访问过的节点也不可达. */
         int unreachablenVertexNum;
         
         EsppcctwLabel(double cost, double time, double demand, int vertexId) {
             super(cost, time, demand, vertexId, null);
             
-            // 默认值为 false
-            isVertexUnreachable = new boolean[vertexNum];
+            // 默认值为 0，即所有节点可达
+            unreachableMask = new long[maskWordNum];
             unreachablenVertexNum = 0;
             
             this.updateUnreachableVertexes();
@@ -266,15 +261,17 @@ public class EspptwccViaLabelCorrecting extends AbstractPriceProblem implements
             
             // 需求量，时间都是 non-decreasing，并且访问过的节点不能再访问
             // 所以上一个标签不可达节点在当前标签中必然不可达
-            this.isVertexUnreachable = new boolean[vertexNum];
-            for (int j = 0; j < vertexNum; j++) {
-                this.isVertexUnreachable[j] = label.isVertexUnreachable[j];
-            }
+            this.unreachableMask = new long[maskWordNum];
+            System.arraycopy(label.unreachableMask, 0, this.unreachableMask, 0, maskWordNum);
             this.unreachablenVertexNum = label.unreachablenVertexNum;
 
             this.updateUnreachableVertexes();
         }
         
+        boolean isUnreachable(int j) {
+            return (unreachableMask[j >>> 6] & (1L << j)) != 0;
+        }
+        
         /**
          * 相同起点和终点的两个标签之间的优超准则判别：<br>
          * 1. 各个“资源”情况 “this” 不大于 “other” <br>
@@ -313,8 +310,8 @@ public class EspptwccViaLabelCorrecting extends AbstractPriceProblem implements
             }
             
             // 如果存在 this 不可达，但 that 可达的节点，则 this 没有“优超” that
-            for (int i = 0; i < vertexNum; i++) {
-                if (this.isVertexUnreachable[i] && !that.isVertexUnreachable[i]) {
+            for (int w = 0; w < maskWordNum; w++) {
+                if ((this.unreachableMask[w] & ~that.unreachableMask[w]) != 0) {
                     return false;
                 }
             }
@@ -324,31 +321,37 @@ public class EspptwccViaLabelCorrecting extends AbstractPriceProblem implements
 
         private void updateUnreachableVertexes() {
             // 当前节点本身不再可达
-            isVertexUnreachable[vertexId] = true;
-            unreachablenVertexNum++;
+            unreachableMask[vertexId >>> 6] |= 1L << vertexId;
             
             // Are preLabel's reachable vertexes still reachable for current vertex?
-            for (int j = 0; j < vertexNum; j++) {
-                if (isVertexUnreachable[j]) {
-                    continue;
-                }
-                
-                // check capacity constraints
-                double newDemand = demand + vertexes[j].getDemand();
-                if (newDemand > capacity) {
-                    isVertexUnreachable[j] = true;
-                    unreachablenVertexNum++;
-                    continue;
+            // 不可能出现在当前节点之后的节点无需再检查资源约束，后续节点位图中不包含当前节点
+            int offset = vertexId * maskWordNum;
+            int reachableVertexNum = 0;
+            for (int w = 0; w < maskWordNum; w++) {
+                long reachable = ~unreachableMask[w] & followerMask[offset + w];
+                for (long bits = reachable; bits != 0; bits &= bits - 1) {
+                    int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    
+                    // check capacity constraints
+                    double newDemand = demand + vertexes[j].getDemand();
+                    if (newDemand > capacity) {
+                        reachable &= ~(1L << j);
+                        continue;
+                    }
+                    
+                    // check time window constraints
+                    double newTime = time + vertexes[vertexId].getServiceTime() + timeMatrix.get(vertexId, j);
+                    if (newTime > latestTimes[j]) {
+                        reachable &= ~(1L << j);
+                    }
                 }
                 
-                // check time window constraints
-                double newTime = time + vertexes[vertexId].getServiceTime() + timeMatrix[vertexId][j];
-                if (newTime > vertexes[j].getLatestTime()) {
-                    isVertexUnreachable[j] = true;
-                    unreachablenVertexNum++;
-                }
+                // 最后一个 long 中超出节点数量的位保持为 0
+                long validBits = w < maskWordNum - 1 ? -1L : -1L >>> ((maskWordNum << 6) - vertexNum);
+                unreachableMask[w] = ~reachable & validBits;
+                reachableVertexNum += Long.bitCount(reachable);
             }
-
+            unreachablenVertexNum = vertexNum - reachableVertexNum;
         }
                 
     }
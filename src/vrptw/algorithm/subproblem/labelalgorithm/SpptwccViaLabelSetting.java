@@ -22,6 +22,7 @@ import vrptw.solution.Path;
  * @since JDK1.8
  */
 public class SpptwccViaLabelSetting extends AbstractPriceProblem implements LabelAlgorithm {
+    /** 原算例中的节点，只用于读取需求和服务时间，时间窗见 {@link #earliestTimes} 和 {@link #latestTimes}. */
     private Vertex[] vertexes;
     
     /** 待处理的 Labels，采用基于 lexicographically minimal 的优先队列. */
@@ -53,10 +54,7 @@ public class SpptwccViaLabelSetting extends AbstractPriceProblem implements Labe
     
     @Override
     public void updateVrptwIns(Vrptw newVrptwIns) {
-        vertexes = new Vertex[vertexNum];
-        for (int i = 0; i < vertexNum; i++) {
-            vertexes[i] = newVrptwIns.getVertexes().get(i);
-        }
+        this.updateTimeWindows(newVrptwIns);
     }
     
     /**
@@ -87,12 +85,9 @@ public class SpptwccViaLabelSetting extends AbstractPriceProblem implements Labe
             SppcctwLabel currlabel = unprocessedLabels.poll();
             
             // Step 2&3: Extension and Dominance
-            for (int i = 0; i < vertexNum; i++) {
-                // all vertexes except the arc with Double.Max_Value
-                if (timeMatrix[currlabel.vertexId][i] == Double.MAX_VALUE) {
-                    continue;
-                }
-                this.labelExtension(currlabel, i);
+            for (int j : successorIndex.getSuccessors(currlabel.vertexId)) {
+                // only the feasible arcs which are not forbidden by branching
+                this.labelExtension(currlabel, j);
             }
             
         }
@@ -124,17 +119,17 @@ public class SpptwccViaLabelSetting extends AbstractPriceProblem implements Labe
         
         // Attention: add service time
         double time = currLabel.time + vertexes[currLabel.vertexId].getServiceTime()
-                + timeMatrix[currLabel.vertexId][nextVertexId];
+                + timeMatrix.get(currLabel.vertexId, nextVertexId);
         
-        if (time > vertexes[nextVertexId].getLatestTime()) {
+        if (time > latestTimes[nextVertexId]) {
             return;
         }
         
-        if (time < vertexes[nextVertexId].getEarliestTime()) {
-            time = vertexes[nextVertexId].getEarliestTime();
+        if (time < earliestTimes[nextVertexId]) {
+            time = earliestTimes[nextVertexId];
         }
         
-        double cost = currLabel.cost + revisedCostMatrix[currLabel.vertexId][nextVertexId];
+        double cost = currLabel.cost + revisedCostMatrix.get(currLabel.vertexId, nextVertexId);
         SppcctwLabel newLabel = new SppcctwLabel(cost, time, demand, nextVertexId, currLabel);
 
         this.useDominanceRules(newLabel);
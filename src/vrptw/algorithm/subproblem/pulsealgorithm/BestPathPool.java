@@ -0,0 +1,164 @@
+package vrptw.algorithm.subproblem.pulsealgorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import vrptw.parameter.Parameters;
+
+/**
+ * Pulse 类算法找到的到达 end depot 的路径及 incumbent，多个线程可能同时更新. <br>
+ * Incumbent 以 {@link Double#doubleToLongBits} 存储，各线程在每次剪枝时读取，一个线程找到更好的路径后其他线程立即使用：
+ * {@link Parameters#PULSE_COLUMN_NUM} 为 1 时即找到的最短路径的 revised cost，通过 CAS 更新；
+ * 否则为找到的第 K 短的路径的 revised cost（不足 K 条时为 0），在 {@link #bestCosts} 的锁内更新. <br>
+ * 同一条路径可能被找到多次（如双向 Pulse 中 bound scheme 找到的路径），按节点序列去重后才更新 incumbent，
+ * 以免重复的路径占据 K 短路径的位置.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+final class BestPathPool {
+    private final AtomicLong incumbentBits;
+    /**
+     * 找到的 revised cost 最小的 {@link Parameters#PULSE_COLUMN_NUM} 条路径的 revised cost（大顶堆），
+     * 只在 {@link Parameters#PULSE_COLUMN_NUM} 大于 1 时使用，修改时需要加锁.
+     */
+    private final PriorityQueue<Double> bestCosts;
+    /** 找到的 revised cost 不大于当时 incumbent 的路径，较差的路径在 {@link #getBestPaths()} 中过滤. */
+    private final ConcurrentLinkedQueue<FinalPath> finalPaths;
+    /** 已经提交过的路径的节点序列. */
+    private final Set<ArrayList<Integer>> offeredRoutes;
+
+    BestPathPool() {
+        incumbentBits = new AtomicLong();
+        bestCosts = new PriorityQueue<>(Parameters.PULSE_COLUMN_NUM + 1, Collections.reverseOrder());
+        finalPaths = new ConcurrentLinkedQueue<>();
+        offeredRoutes = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * 清空所有路径，incumbent 重置为 0.
+     */
+    void clear() {
+        incumbentBits.set(Double.doubleToLongBits(0));
+        bestCosts.clear();
+        finalPaths.clear();
+        offeredRoutes.clear();
+    }
+
+    double getIncumbent() {
+        return Double.longBitsToDouble(incumbentBits.get());
+    }
+
+    /**
+     * 提交一条到达 end depot 的可行路径：已经提交过的路径直接忽略，否则尝试更新 incumbent，
+     * revised cost 不大于更新后的 incumbent 时记录该路径. <br>
+     * 调用方应先检查 revised cost 不大于 {@link #getIncumbent()}，避免为较差的路径生成节点序列.
+     *
+     * @param cost      路径的 revised cost
+     * @param vertexIds 路径的节点序列，提交后不能再修改
+     */
+    void offer(double cost, ArrayList<Integer> vertexIds) {
+        if (!offeredRoutes.add(vertexIds)) {
+            return;
+        }
+        if (this.updateIncumbent(cost)) {
+            finalPaths.add(new FinalPath(cost, vertexIds));
+        }
+    }
+
+    /**
+     * 用一条到达 end depot 的可行路径的 revised cost 尝试更新 incumbent.
+     *
+     * @param cost 路径的 revised cost
+     * @return revised cost 是否不大于更新后的 incumbent
+     */
+    private boolean updateIncumbent(double cost) {
+        if (Parameters.PULSE_COLUMN_NUM == 1) {
+            // CAS 更新 incumbent，失败说明其他线程已更新，重新比较
+            long currBits = incumbentBits.get();
+            while (cost < Double.longBitsToDouble(currBits)) {
+                if (incumbentBits.compareAndSet(currBits, Double.doubleToLongBits(cost))) {
+                    break;
+                }
+                currBits = incumbentBits.get();
+            }
+        } else if (cost < this.getIncumbent()) {
+            synchronized (bestCosts) {
+                bestCosts.add(cost);
+                if (bestCosts.size() > Parameters.PULSE_COLUMN_NUM) {
+                    bestCosts.poll();
+                }
+                if (bestCosts.size() == Parameters.PULSE_COLUMN_NUM) {
+                    incumbentBits.set(Double.doubleToLongBits(bestCosts.peek()));
+                }
+            }
+        }
+
+        return cost <= this.getIncumbent();
+    }
+
+    /**
+     * 按 revised cost 和节点序列的字典序排列，结果与线程调度无关，节点序列相同的路径只保留一条.
+     *
+     * @return 最短的 {@link Parameters#PULSE_COLUMN_NUM} 条路径及与其中最后一条 revised cost 相同的路径
+     */
+    ArrayList<FinalPath> getBestPaths() {
+        ArrayList<FinalPath> sortedFinalPaths = new ArrayList<>(finalPaths);
+        sortedFinalPaths.sort(null);
+        int columnNum = Math.min(Parameters.PULSE_COLUMN_NUM, sortedFinalPaths.size());
+
+        ArrayList<FinalPath> bestPaths = new ArrayList<>(columnNum);
+        HashSet<ArrayList<Integer>> routes = new HashSet<>();
+        for (FinalPath finalPath : sortedFinalPaths) {
+            if (bestPaths.size() >= columnNum && finalPath.cost > bestPaths.get(bestPaths.size() - 1).cost) {
+                break;
+            }
+            if (routes.add(finalPath.vertexIds)) {
+                bestPaths.add(finalPath);
+            }
+        }
+
+        return bestPaths;
+    }
+
+    /**
+     * 到达 end depot 的路径，按 revised cost 和节点序列的字典序比较.
+     *
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    static final class FinalPath implements Comparable<FinalPath> {
+        final double cost;
+        final ArrayList<Integer> vertexIds;
+
+        FinalPath(double cost, ArrayList<Integer> vertexIds) {
+            this.cost = cost;
+            this.vertexIds = vertexIds;
+        }
+
+        @Override
+        public int compareTo(FinalPath other) {
+            if (cost != other.cost) {
+                return Double.compare(cost, other.cost);
+            }
+
+            int size = Math.min(vertexIds.size(), other.vertexIds.size());
+            for (int i = 0; i < size; i++) {
+                int diff = Integer.compare(vertexIds.get(i), other.vertexIds.get(i));
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return Integer.compare(vertexIds.size(), other.vertexIds.size());
+        }
+    }
+
+}
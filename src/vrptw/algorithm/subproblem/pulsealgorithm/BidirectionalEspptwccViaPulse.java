@@ -0,0 +1,850 @@
+package vrptw.algorithm.subproblem.pulsealgorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import vrptw.algorithm.subproblem.AbstractPriceProblem;
+import vrptw.algorithm.subproblem.pulsealgorithm.BestPathPool.FinalPath;
+import vrptw.parameter.Parameters;
+import vrptw.problem.Vertex;
+import vrptw.problem.Vrptw;
+import vrptw.solution.Path;
+
+/**
+ * Solve an ESPPTWCC via bidirectional pulse algorithm,
+ * see Cabrera N, et al. (2020): An exact bidirectional pulse algorithm for the constrained shortest path. <br>
+ * 路径较长时单向 pulse 的搜索深度和搜索空间随路径长度迅速增长，因此以分界时间 {@link #midTime} 将路径分为两半：<br>
+ * 1 前向 pulse 从 start depot 出发，到达节点 j 的时间不早于分界时间时停止，将路径存入 j 的桶 <br>
+ * 2 后向 pulse 从 end depot 出发沿前驱节点搜索，只访问最晚开始服务时间不早于分界时间的节点，将路径存入第一个节点的桶 <br>
+ * 3 两个方向在 fork/join 线程池中同时搜索，部分路径存入桶时立即与桶中另一个方向的部分路径连接，
+ * 检查 elementarity、容量和时间窗，尽早更新 incumbent. <br>
+ * 每条路径只在到达时间第一次不早于分界时间的节点处被连接，且同一个桶中的两条部分路径只由后存入的一方连接，因此不会重复；
+ * 另一个方向的任务都已结束时部分路径只需连接，不再存入桶中. <br>
+ * 前向 pulse 使用与 {@link EspptwccViaPulse} 相同的 bounding scheme 计算 bound；
+ * 后向部分路径只覆盖计划期末尾的一段，以 naive bound 估计其之前的路径的 revised cost.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+public class BidirectionalEspptwccViaPulse extends AbstractPriceProblem {
+    /** 各节点的需求量. */
+    private double[] demands;
+    /** 各节点的服务时间. */
+    private double[] serviceTimes;
+
+    /** 前向和后向 pulse 的分界时间，见 {@link Parameters#PULSE_BIDIRECTIONAL_SPLIT_RATIO}. */
+    private double midTime;
+    /** time step in bound scheme，与 {@link EspptwccViaPulse} 相同，根据时间窗的分布选择. */
+    private double timeStep;
+    /** minimum of cost/time ratio among all arcs. */
+    private double naiveBound;
+
+    /**
+     * 第 v * boundNum + k 个元素为在 k * {@link #timeStep} 时刻或之后开始服务节点 v、
+     * 到达 end depot 的路径的最小 revised cost.
+     */
+    private double[] bounds;
+    private int boundNum;
+    /** Bound scheme 中已完成的时间点上从各节点出发的最短路径的 revised cost. */
+    private double[] minCosts;
+    /** lowest bound found in bound scheme. */
+    private double relaxationBound;
+    /** 第一个（最晚的）和最后一个计算 bound 的时间点. */
+    private int firstBoundIndex;
+    private int lastBoundIndex;
+    /** 最后一个已完成的时间点，之前的时间点使用 naive bound. */
+    private int doneBoundIndex;
+
+    /** 各节点的可行前驱节点，由 {@link #successorIndex} 得到. */
+    private int[][] predecessors;
+    /** 计算 {@link #predecessors} 时使用的后继节点索引. */
+    private Object predecessorSource;
+    /** 各节点之前可能出现在同一条路径上的节点的位图，即 {@link #followerMask} 的转置. */
+    private long[] predecessorMask;
+    /** 计算 {@link #predecessorMask} 时使用的后续节点位图. */
+    private long[] predecessorMaskSource;
+
+    /** 各节点的桶，存放越过分界时间时到达该节点的前向部分路径和从该节点出发的后向部分路径. */
+    private Bucket[] buckets;
+    /** Pulse 阶段尚未结束的前向和后向任务的数量，为 0 时另一个方向的部分路径无需存入桶中. */
+    private AtomicInteger pendingForwardTaskNum;
+    private AtomicInteger pendingBackwardTaskNum;
+
+    /** 找到的到达 end depot 的路径及 incumbent. */
+    private BestPathPool bestPaths;
+
+    /** 各工作线程的路径状态，在多次求解之间重复使用，每个任务结束时路径为空. */
+    private ThreadLocal<SearchState> searchStates;
+
+    /**
+     * Create a Instance BidirectionalEspptwccViaPulse.
+     *
+     * @param originVrptwIns 原始 VRPTW 算例
+     */
+    public BidirectionalEspptwccViaPulse(Vrptw originVrptwIns) {
+        super(originVrptwIns);
+
+        demands = new double[vertexNum];
+        serviceTimes = new double[vertexNum];
+        int count = 0;
+        for (Vertex v : originVrptwIns.getVertexes()) {
+            demands[count] = v.getDemand();
+            serviceTimes[count] = v.getServiceTime();
+            count++;
+        }
+
+        minCosts = new double[vertexNum];
+        buckets = new Bucket[vertexNum];
+        for (int i = 0; i < vertexNum; i++) {
+            buckets[i] = new Bucket();
+        }
+        bestPaths = new BestPathPool();
+        pendingForwardTaskNum = new AtomicInteger();
+        pendingBackwardTaskNum = new AtomicInteger();
+        searchStates = ThreadLocal.withInitial(() -> new SearchState(vertexNum, maskWordNum));
+    }
+
+    @Override
+    public void updateVrptwIns(Vrptw vrptwInsTwChanged) {
+        this.updateTimeWindows(vrptwInsTwChanged);
+    }
+
+    /**
+     * Solve an ESPPTWCC via bidirectional pulse algorithm: <br>
+     * Step 0: Initialization <br>
+     * Step 1: Bound scheme <br>
+     * Step 2: 前向和后向 pulse 同时搜索到分界时间，并连接两个方向的部分路径 <br>
+     * Step 3: Filtering.
+     *
+     * @param lambda dual values
+     */
+    @Override
+    public void solve(Map<Integer, Double> lambda) {
+        this.reset();
+
+        // Step 0: Initialization
+        this.updateDistAndCostMatrix(lambda);
+        this.updatePredecessors();
+        this.initBoundGranularity();
+        this.calNaiveBound();
+
+        // Step 1: Bound Scheme
+        EspptwccViaPulse.PULSE_POOL.invoke(new BoundingTask());
+
+        // Step 2: Pulse from both depots
+        EspptwccViaPulse.PULSE_POOL.invoke(new SearchTask());
+
+        // Step 3: get shortest paths，保留最短的 K 条路径及与第 K 条路径 revised cost 相同的路径
+        ArrayList<FinalPath> finalPaths = bestPaths.getBestPaths();
+        for (FinalPath finalPath : finalPaths) {
+            this.shortestPaths.add(new Path(vrptwIns, finalPath.vertexIds));
+        }
+        revisedCostOfShortestPath = finalPaths.isEmpty() ? 0 : finalPaths.get(0).cost;
+
+        // 部分路径可能很多，求解结束后立即释放
+        for (Bucket bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    @Override
+    protected void reset() {
+        this.revisedCostOfShortestPath = 0;
+        this.bestPaths.clear();
+        this.shortestPaths.clear();
+        for (Bucket bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    /**
+     * 后继节点索引或后续节点位图改变时（分支后），重新计算 {@link #predecessors} 和 {@link #predecessorMask}.
+     */
+    private void updatePredecessors() {
+        if (predecessorSource != successorIndex) {
+            int[] predecessorNums = new int[vertexNum];
+            for (int i = 0; i < vertexNum; i++) {
+                for (int j : successorIndex.getSuccessors(i)) {
+                    predecessorNums[j]++;
+                }
+            }
+            predecessors = new int[vertexNum][];
+            for (int j = 0; j < vertexNum; j++) {
+                predecessors[j] = new int[predecessorNums[j]];
+                predecessorNums[j] = 0;
+            }
+            for (int i = 0; i < vertexNum; i++) {
+                for (int j : successorIndex.getSuccessors(i)) {
+                    predecessors[j][predecessorNums[j]++] = i;
+                }
+            }
+            predecessorSource = successorIndex;
+        }
+
+        if (predecessorMaskSource != followerMask) {
+            predecessorMask = new long[vertexNum * maskWordNum];
+            for (int i = 0; i < vertexNum; i++) {
+                for (int j = 0; j < vertexNum; j++) {
+                    if ((followerMask[i * maskWordNum + (j >>> 6)] & (1L << j)) != 0) {
+                        predecessorMask[j * maskWordNum + (i >>> 6)] |= 1L << i;
+                    }
+                }
+            }
+            predecessorMaskSource = followerMask;
+        }
+    }
+
+    /**
+     * 与 {@link EspptwccViaPulse} 相同，根据时间窗的分布选择 {@link #timeStep}，
+     * bound 从计划期末尾计算到计划期的 {@link Parameters#PULSE_TIME_LIMIT_RATIO} 处.
+     */
+    private void initBoundGranularity() {
+        double horizon = latestTimes[vertexNum - 1];
+        double widthSum = 0;
+        for (int i = 1; i < vertexNum - 1; i++) {
+            widthSum += latestTimes[i] - earliestTimes[i];
+            horizon = Math.max(horizon, latestTimes[i]);
+        }
+        double avgWidth = widthSum / Math.max(vertexNum - 2, 1);
+
+        double timeLimitLb = Math.floor(horizon * Parameters.PULSE_TIME_LIMIT_RATIO);
+        timeStep = Math.max(avgWidth / Parameters.PULSE_STEPS_PER_WINDOW,
+                (horizon - timeLimitLb) / Parameters.PULSE_MAX_BOUND_NUM);
+        timeStep = Math.max(Math.ceil(timeStep), 1);
+        midTime = earliestTimes[0]
+                + (latestTimes[vertexNum - 1] - earliestTimes[0]) * Parameters.PULSE_BIDIRECTIONAL_SPLIT_RATIO;
+
+        firstBoundIndex = (int) (horizon / timeStep);
+        lastBoundIndex = (int) Math.ceil(timeLimitLb / timeStep);
+        boundNum = firstBoundIndex + 1;
+        if (bounds == null || bounds.length != vertexNum * boundNum) {
+            bounds = new double[vertexNum * boundNum];
+        }
+    }
+
+    /**
+     * set {@link #naiveBound} to be minimum of cost/time ratio among all arcs.
+     */
+    private void calNaiveBound() {
+        naiveBound = Double.MAX_VALUE;
+        for (int i = 0; i < vertexNum; i++) {
+            for (int j : successorIndex.getSuccessors(i)) {
+                double time = serviceTimes[i] + timeMatrix.get(i, j);
+                if (time == 0) {
+                    continue;
+                }
+                naiveBound = Math.min(naiveBound, revisedCostMatrix.get(i, j) / time);
+            }
+        }
+    }
+
+    /**
+     * @param v    节点 ID
+     * @param time 开始服务节点 v 的时间
+     * @return 从 v 出发到达 end depot 的路径的 revised cost 的下界
+     */
+    private double calForwardBound(int v, double time) {
+        int index = (int) (time / timeStep);
+        if (index < doneBoundIndex) {
+            return (doneBoundIndex * timeStep - time) * naiveBound + relaxationBound;
+        }
+        return bounds[v * boundNum + index];
+    }
+
+    /**
+     * @param latestTime 节点的最晚开始服务时间
+     * @return 从 start depot 出发、在 latestTime 之前开始服务该节点的路径的 revised cost 的下界
+     */
+    private double calBackwardBound(double latestTime) {
+        return (latestTime - earliestTimes[0]) * naiveBound;
+    }
+
+    /**
+     * 从给定节点出发，按给定方向进行深度优先搜索，直到路径中只剩下 baseDepth 个节点.
+     *
+     * @param state      当前线程的路径状态，已包含出发节点
+     * @param baseDepth  搜索结束时路径中的节点数量
+     * @param isForward  是否为前向
+     * @param isBounding 是否为 bound scheme
+     */
+    private void pulse(SearchState state, int baseDepth, boolean isForward, boolean isBounding) {
+        while (state.depth > baseDepth) {
+            int depth = state.depth - 1;
+            int currVertexId = state.path[depth];
+            int[] nextVertexIds = isForward ? successorIndex.getSuccessors(currVertexId) : predecessors[currVertexId];
+            int k = state.successorCursors[depth];
+            if (k == nextVertexIds.length) {
+                state.pop();
+                continue;
+            }
+            state.successorCursors[depth] = k + 1;
+
+            if (isForward) {
+                this.extendForward(state, nextVertexIds[k], isBounding);
+            } else {
+                this.extendBackward(state, nextVertexIds[k]);
+            }
+        }
+    }
+
+    /**
+     * 前向 pulse：当前路径的最后一个节点 i 尝试前往节点 j. <br>
+     * Bound scheme 中找到的到达 end depot 的路径用于更新出发节点的 bound；
+     * Pulse 阶段到达 j 的时间不早于分界时间时停止，将当前路径存入 j 的桶并与其中的后向部分路径连接.
+     *
+     * @param state      当前线程的路径状态
+     * @param j          后继节点 ID
+     * @param isBounding 是否为 bound scheme
+     */
+    private void extendForward(SearchState state, int j, boolean isBounding) {
+        int depth = state.depth - 1;
+        int i = state.path[depth];
+        if ((state.reachableMasks[depth * maskWordNum + (j >>> 6)] & (1L << j)) == 0) {
+            return;
+        }
+
+        // Check demand and time window feasibility
+        double newDemand = state.demands[depth] + demands[j];
+        double arrTime = state.times[depth] + serviceTimes[i] + timeMatrix.get(i, j);
+        if (newDemand > capacity || arrTime > latestTimes[j]) {
+            return;
+        }
+        double newTime = Math.max(arrTime, earliestTimes[j]);
+        double newCost = state.costs[depth] + revisedCostMatrix.get(i, j);
+
+        double incumbent;
+        if (isBounding) {
+            int rootVertexId = state.path[0];
+            if (j == vertexNum - 1) {
+                if (newCost < minCosts[rootVertexId]) {
+                    minCosts[rootVertexId] = newCost;
+                    this.tryToSeedIncumbent(state, newCost);
+                }
+                return;
+            }
+            incumbent = minCosts[rootVertexId];
+        } else {
+            if (j == vertexNum - 1) {
+                this.tryToUpdateShortestPath(state, newCost);
+                return;
+            }
+            incumbent = bestPaths.getIncumbent();
+        }
+
+        // check bound and roll back to prune
+        if (newCost + this.calForwardBound(j, newTime) >= incumbent) {
+            return;
+        }
+        if (depth > 0 && state.costs[depth - 1] + revisedCostMatrix.get(state.path[depth - 1], j) <= newCost) {
+            return;
+        }
+
+        // 越过分界时间，当前路径作为前向部分路径与 j 的桶中的后向部分路径连接，后向任务尚未结束时存入桶中
+        if (!isBounding && newTime >= midTime) {
+            HalfPath forwardPath = state.loadHalfPath(true);
+            HalfPath storedPath = null;
+            if (pendingBackwardTaskNum.get() > 0) {
+                // 同一条前向部分路径可能存入多个桶，只复制一次
+                if (state.storedHalfPaths[depth] == null) {
+                    state.storedHalfPaths[depth] = forwardPath.copy();
+                }
+                storedPath = state.storedHalfPaths[depth];
+            }
+            HalfPath[] backwardPaths = buckets[j].addForward(storedPath, state);
+            for (int k = 0; k < state.bucketPathNum; k++) {
+                this.join(forwardPath, backwardPaths[k], j);
+            }
+            return;
+        }
+
+        state.push(j, newCost, newDemand, newTime, followerMask);
+    }
+
+    /**
+     * 后向 pulse：节点 i 尝试加入当前路径的最前面（当前路径的第一个节点为 j），
+     * 只访问最晚开始服务时间不早于分界时间的节点，将加入 i 后的路径存入 i 的桶并与其中的前向部分路径连接.
+     *
+     * @param state 当前线程的路径状态，path 中按与行驶方向相反的顺序存放
+     * @param i     前驱节点 ID
+     */
+    private void extendBackward(SearchState state, int i) {
+        // start depot 总是属于前向部分路径
+        if (i == 0) {
+            return;
+        }
+        int depth = state.depth - 1;
+        int j = state.path[depth];
+        if ((state.reachableMasks[depth * maskWordNum + (i >>> 6)] & (1L << i)) == 0) {
+            return;
+        }
+
+        // Check demand and time window feasibility
+        double newDemand = state.demands[depth] + demands[i];
+        double newTime = Math.min(state.times[depth] - serviceTimes[i] - timeMatrix.get(i, j), latestTimes[i]);
+        if (newDemand > capacity || newTime < earliestTimes[i] || newTime < midTime) {
+            return;
+        }
+        double newCost = state.costs[depth] + revisedCostMatrix.get(i, j);
+
+        // check bound and roll back to prune
+        if (newCost + this.calBackwardBound(newTime) >= bestPaths.getIncumbent()) {
+            return;
+        }
+        if (depth > 0 && state.costs[depth - 1] + revisedCostMatrix.get(i, state.path[depth - 1]) <= newCost) {
+            return;
+        }
+
+        state.push(i, newCost, newDemand, newTime, predecessorMask);
+        HalfPath backwardPath = state.loadHalfPath(false);
+        HalfPath storedPath = pendingForwardTaskNum.get() > 0 ? backwardPath.copy() : null;
+        HalfPath[] forwardPaths = buckets[i].addBackward(storedPath, state);
+        for (int k = 0; k < state.bucketPathNum; k++) {
+            this.join(forwardPaths[k], backwardPath, i);
+        }
+    }
+
+    /**
+     * 前向 pulse 在分界时间之前到达了 end depot，尝试更新 incumbent 并记录路径.
+     *
+     * @param state 当前路径（不包含 end depot）
+     * @param cost  到达 end depot 的 revised cost
+     */
+    private void tryToUpdateShortestPath(SearchState state, double cost) {
+        if (cost <= bestPaths.getIncumbent()) {
+            ArrayList<Integer> vertexIds = new ArrayList<>(state.depth + 1);
+            for (int k = 0; k < state.depth; k++) {
+                vertexIds.add(state.path[k]);
+            }
+            vertexIds.add(vertexNum - 1);
+            bestPaths.offer(cost, vertexIds);
+        }
+    }
+
+    /**
+     * Bound scheme 中从客户 v 出发到达 end depot 的路径，若从 start depot 直接到达 v 的时间不晚于该路径的出发时间，
+     * 加上 start depot 后为可行路径. <br>
+     * 用于在 pulse 阶段开始前得到 incumbent，否则先搜索的方向没有另一个方向的部分路径可以连接，
+     * incumbent 一直为 0，部分路径的数量迅速增长.
+     * Pulse 阶段会再次找到相同的路径，由于 revised cost 的累加顺序不同，两者的值可能相差舍入误差，
+     * 由 {@link BestPathPool#offer(double, ArrayList)} 按节点序列去重.
+     *
+     * @param state 当前路径（不包含 end depot）
+     * @param cost  从 v 到达 end depot 的 revised cost
+     */
+    private void tryToSeedIncumbent(SearchState state, double cost) {
+        int v = state.path[0];
+        // 弧 (0, v) 被禁止时行驶时间为 BIG_TRAVEL_TIME
+        if (earliestTimes[0] + serviceTimes[0] + timeMatrix.get(0, v) > state.times[0]) {
+            return;
+        }
+
+        double totalCost = revisedCostMatrix.get(0, v) + cost;
+        if (totalCost <= bestPaths.getIncumbent()) {
+            ArrayList<Integer> vertexIds = new ArrayList<>(state.depth + 2);
+            vertexIds.add(0);
+            for (int k = 0; k < state.depth; k++) {
+                vertexIds.add(state.path[k]);
+            }
+            vertexIds.add(vertexNum - 1);
+            bestPaths.offer(totalCost, vertexIds);
+        }
+    }
+
+    /**
+     * 通过弧 (i, j) 连接 i 结束的前向部分路径和 j 出发的后向部分路径，检查 elementarity、容量和时间窗，
+     * 前向部分路径存入 j 的桶时已检查过弧 (i, j) 本身.
+     *
+     * @param forwardPath  前向部分路径
+     * @param backwardPath 后向部分路径
+     * @param j            后向部分路径的第一个节点
+     */
+    private void join(HalfPath forwardPath, HalfPath backwardPath, int j) {
+        int i = forwardPath.vertexIds[forwardPath.size - 1];
+        double cost = forwardPath.cost + revisedCostMatrix.get(i, j) + backwardPath.cost;
+        if (cost > bestPaths.getIncumbent()
+                || forwardPath.time + serviceTimes[i] + timeMatrix.get(i, j) > backwardPath.time
+                || forwardPath.demand + backwardPath.demand > capacity
+                || !forwardPath.canBeFollowedBy(backwardPath)) {
+            return;
+        }
+
+        bestPaths.offer(cost, forwardPath.concat(backwardPath));
+    }
+
+    /**
+     * Bound scheme：从最晚的时间点开始逐个向前计算，同一时间点上各客户的 bound 并行计算，见 {@link BoundTask}.
+     *
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private class BoundingTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            Arrays.fill(minCosts, Double.MAX_VALUE);
+            relaxationBound = 0;
+            doneBoundIndex = firstBoundIndex + 1;
+            for (int index = firstBoundIndex; index >= lastBoundIndex; index--) {
+                invokeAll(new BoundTask(1, vertexNum - 1, index * timeStep));
+
+                for (int v = 1; v < vertexNum - 1; v++) {
+                    bounds[v * boundNum + index] = minCosts[v];
+                    relaxationBound = Math.min(relaxationBound, minCosts[v]);
+                }
+                doneBoundIndex = index;
+            }
+        }
+    }
+
+    /**
+     * Bound scheme 一个时间点上的任务：计算 ID 在 [fromVertexId, toVertexId) 中的客户的 bound，
+     * 区间二分直到只包含一个客户.
+     *
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private class BoundTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int fromVertexId;
+        final int toVertexId;
+        /** 开始服务出发节点的时间. */
+        final double time;
+
+        BoundTask(int fromVertexId, int toVertexId, double time) {
+            this.fromVertexId = fromVertexId;
+            this.toVertexId = toVertexId;
+            this.time = time;
+        }
+
+        @Override
+        protected void compute() {
+            if (toVertexId - fromVertexId > 1) {
+                int mid = (fromVertexId + toVertexId) >>> 1;
+                invokeAll(new BoundTask(fromVertexId, mid, time), new BoundTask(mid, toVertexId, time));
+                return;
+            }
+
+            int v = fromVertexId;
+            double rootTime = Math.max(time, earliestTimes[v]);
+            if (rootTime > latestTimes[v]) {
+                return;
+            }
+
+            SearchState state = searchStates.get();
+            state.push(v, 0, demands[v], rootTime, followerMask);
+            pulse(state, 0, true, true);
+        }
+    }
+
+    /**
+     * 两个方向的 pulse：后向从 end depot 的每个前驱节点、前向从 start depot 的每个后继节点拆分为独立的任务，
+     * 在线程池中同时执行. <br>
+     * 后向任务排在前面：线程较少时后向部分路径大多先存入桶中，前向部分路径一经生成即可连接为完整路径并更新 incumbent.
+     *
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            int[] successors = successorIndex.getSuccessors(0);
+            int[] endPredecessors = predecessors[vertexNum - 1];
+            ArrayList<PulseTask> tasks = new ArrayList<>(successors.length + endPredecessors.length);
+            pendingForwardTaskNum.set(successors.length);
+            pendingBackwardTaskNum.set(endPredecessors.length);
+            for (int i : endPredecessors) {
+                tasks.add(new PulseTask(false, i));
+            }
+            for (int j : successors) {
+                tasks.add(new PulseTask(true, j));
+            }
+
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * 一个方向上从 depot 出发、经过给定节点的所有部分路径的深度优先搜索.
+     *
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private class PulseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** 是否为前向 pulse. */
+        final boolean isForward;
+        /** depot 之后（后向时为之前）的第一个节点. */
+        final int firstVertexId;
+
+        PulseTask(boolean isForward, int firstVertexId) {
+            this.isForward = isForward;
+            this.firstVertexId = firstVertexId;
+        }
+
+        @Override
+        protected void compute() {
+            SearchState state = searchStates.get();
+            if (isForward) {
+                state.push(0, 0, 0, earliestTimes[0], followerMask);
+                extendForward(state, firstVertexId, false);
+            } else {
+                int endDepotId = vertexNum - 1;
+                state.push(endDepotId, 0, 0, latestTimes[endDepotId], predecessorMask);
+                extendBackward(state, firstVertexId);
+            }
+
+            pulse(state, 1, isForward, false);
+            state.pop();
+            (isForward ? pendingForwardTaskNum : pendingBackwardTaskNum).decrementAndGet();
+        }
+    }
+
+    /**
+     * 一个方向上当前路径的状态，同时作为深度优先搜索的显式栈. <br>
+     * 后向时 path 按与行驶方向相反的顺序存放，times 为各节点的最晚开始服务时间，
+     * 可达节点位图由前驱节点位图求交集得到. <br>
+     * 路径状态保存在共享线程池的工作线程的 ThreadLocal 中，因此不引用 {@link BidirectionalEspptwccViaPulse} 实例.
+     *
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private static class SearchState {
+        final int maskWordNum;
+        
+        int depth;
+        final int[] path;
+        final double[] costs;
+        final double[] demands;
+        final double[] times;
+        final int[] successorCursors;
+        /** 当前路径上每一层的可达节点位图，位于 [depth * maskWordNum, (depth + 1) * maskWordNum). */
+        final long[] reachableMasks;
+        
+        /** 
+         * 各层的部分路径，用于与桶中另一个方向的部分路径连接，在需要时创建并在之后的搜索中重复使用，
+         * 只有存入桶中的部分路径才复制，见 {@link HalfPath#copy()}.
+         */
+        final HalfPath[] halfPaths;
+        /** 各层的部分路径是否已由当前路径填充，路径改变时失效. */
+        final boolean[] isHalfPathLoaded;
+        /** 前向时各层已存入桶的部分路径，同一条部分路径可能存入多个桶. */
+        final HalfPath[] storedHalfPaths;
+        /** 最近一次存入桶时返回的另一个方向的部分路径的数量. */
+        int bucketPathNum;
+
+        SearchState(int vertexNum, int maskWordNum) {
+            this.maskWordNum = maskWordNum;
+            
+            path = new int[vertexNum];
+            costs = new double[vertexNum];
+            demands = new double[vertexNum];
+            times = new double[vertexNum];
+            successorCursors = new int[vertexNum];
+            reachableMasks = new long[vertexNum * maskWordNum];
+            halfPaths = new HalfPath[vertexNum];
+            isHalfPathLoaded = new boolean[vertexNum];
+            storedHalfPaths = new HalfPath[vertexNum];
+        }
+
+        /**
+         * 将节点加入路径末尾.
+         *
+         * @param relationMask 后续节点位图（前向）或前驱节点位图（后向）
+         */
+        void push(int vertexId, double cost, double demand, double time, long[] relationMask) {
+            int offset = depth * maskWordNum;
+            int relationOffset = vertexId * maskWordNum;
+            for (int w = 0; w < maskWordNum; w++) {
+                long mask = relationMask[relationOffset + w];
+                reachableMasks[offset + w] = depth == 0 ? mask : reachableMasks[offset - maskWordNum + w] & mask;
+            }
+            path[depth] = vertexId;
+            costs[depth] = cost;
+            demands[depth] = demand;
+            times[depth] = time;
+            successorCursors[depth] = 0;
+            isHalfPathLoaded[depth] = false;
+            storedHalfPaths[depth] = null;
+            depth++;
+        }
+
+        void pop() {
+            depth--;
+            isHalfPathLoaded[depth] = false;
+            storedHalfPaths[depth] = null;
+        }
+        
+        /**
+         * 由当前路径填充最后一层的部分路径，同一层已填充时直接返回.
+         *
+         * @param isForward 是否为前向
+         * @return 当前路径对应的部分路径，路径改变后内容失效，需要保留时使用 {@link HalfPath#copy()}
+         */
+        HalfPath loadHalfPath(boolean isForward) {
+            int last = depth - 1;
+            if (halfPaths[last] == null) {
+                halfPaths[last] = new HalfPath(path.length, maskWordNum);
+            }
+            HalfPath halfPath = halfPaths[last];
+            if (isHalfPathLoaded[last]) {
+                return halfPath;
+            }
+            
+            halfPath.cost = costs[last];
+            halfPath.time = times[last];
+            halfPath.demand = demands[last];
+            halfPath.size = depth;
+            System.arraycopy(path, 0, halfPath.vertexIds, 0, depth);
+            if (isForward) {
+                System.arraycopy(reachableMasks, last * maskWordNum, halfPath.mask, 0, maskWordNum);
+            } else {
+                Arrays.fill(halfPath.mask, 0);
+                for (int k = 1; k < depth; k++) {
+                    halfPath.mask[path[k] >>> 6] |= 1L << path[k];
+                }
+            }
+            isHalfPathLoaded[last] = true;
+            
+            return halfPath;
+        }
+    }
+
+    /**
+     * 一个节点的桶，加入部分路径时返回桶中已有的另一个方向的部分路径，
+     * 因此两条部分路径只由后加入的一方连接一次. <br>
+     * 部分路径存放在只增不减的数组中，返回的数组中前 {@link SearchState#bucketPathNum} 个元素在加入时已经存在，之后不再改变，
+     * 可以在锁外读取.
+     *
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private static class Bucket {
+        private static final HalfPath[] EMPTY_PATHS = new HalfPath[0];
+        
+        private HalfPath[] forwardPaths = EMPTY_PATHS;
+        private int forwardPathNum;
+        private HalfPath[] backwardPaths = EMPTY_PATHS;
+        private int backwardPathNum;
+
+        /**
+         * @param forwardPath 存入的前向部分路径，为 null 时只返回后向部分路径
+         * @param state       当前线程的路径状态，返回的后向部分路径的数量记录在 {@link SearchState#bucketPathNum} 中
+         * @return 桶中已有的后向部分路径
+         */
+        synchronized HalfPath[] addForward(HalfPath forwardPath, SearchState state) {
+            if (forwardPath != null) {
+                if (forwardPathNum == forwardPaths.length) {
+                    forwardPaths = Arrays.copyOf(forwardPaths, Math.max(Parameters.INITIAL_CAPACITY, forwardPathNum * 2));
+                }
+                forwardPaths[forwardPathNum++] = forwardPath;
+            }
+            state.bucketPathNum = backwardPathNum;
+            return backwardPaths;
+        }
+
+        /**
+         * @param backwardPath 存入的后向部分路径，为 null 时只返回前向部分路径
+         * @param state        当前线程的路径状态，返回的前向部分路径的数量记录在 {@link SearchState#bucketPathNum} 中
+         * @return 桶中已有的前向部分路径
+         */
+        synchronized HalfPath[] addBackward(HalfPath backwardPath, SearchState state) {
+            if (backwardPath != null) {
+                if (backwardPathNum == backwardPaths.length) {
+                    backwardPaths = Arrays.copyOf(backwardPaths,
+                            Math.max(Parameters.INITIAL_CAPACITY, backwardPathNum * 2));
+                }
+                backwardPaths[backwardPathNum++] = backwardPath;
+            }
+            state.bucketPathNum = forwardPathNum;
+            return forwardPaths;
+        }
+
+        synchronized void clear() {
+            forwardPaths = EMPTY_PATHS;
+            forwardPathNum = 0;
+            backwardPaths = EMPTY_PATHS;
+            backwardPathNum = 0;
+        }
+    }
+
+    /**
+     * 一个方向的部分路径，{@link SearchState} 中各层重复使用的部分路径和存入桶中的副本.
+     *
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private static class HalfPath {
+        /** 部分路径的 revised cost. */
+        double cost;
+        /** 前向时为最后一个节点的开始服务时间，后向时为第一个节点的最晚开始服务时间. */
+        double time;
+        double demand;
+        /** 经过的节点，后向时按与行驶方向相反的顺序存放，只有前 size 个元素有效. */
+        final int[] vertexIds;
+        int size;
+        /** 前向时为可以接在路径之后的节点的位图，后向时为经过的客户的位图. */
+        final long[] mask;
+
+        HalfPath(int capacity, int maskWordNum) {
+            vertexIds = new int[capacity];
+            mask = new long[maskWordNum];
+        }
+
+        /**
+         * @return 只包含有效节点的副本，用于存入桶中
+         */
+        HalfPath copy() {
+            HalfPath halfPath = new HalfPath(size, mask.length);
+            halfPath.cost = cost;
+            halfPath.time = time;
+            halfPath.demand = demand;
+            halfPath.size = size;
+            System.arraycopy(vertexIds, 0, halfPath.vertexIds, 0, size);
+            System.arraycopy(mask, 0, halfPath.mask, 0, mask.length);
+            return halfPath;
+        }
+
+        /**
+         * @return 后向部分路径上的客户是否都可以接在当前前向部分路径之后（因此不重复）
+         */
+        boolean canBeFollowedBy(HalfPath backwardPath) {
+            for (int w = 0; w < mask.length; w++) {
+                if ((backwardPath.mask[w] & ~mask[w]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return 当前前向部分路径与后向部分路径连接而成的完整路径
+         */
+        ArrayList<Integer> concat(HalfPath backwardPath) {
+            ArrayList<Integer> ids = new ArrayList<>(size + backwardPath.size);
+            for (int k = 0; k < size; k++) {
+                ids.add(vertexIds[k]);
+            }
+            for (int k = backwardPath.size - 1; k >= 0; k--) {
+                ids.add(backwardPath.vertexIds[k]);
+            }
+            return ids;
+        }
+    }
+
+}
@@ -1,10 +1,19 @@
 package vrptw.algorithm.subproblem.pulsealgorithm;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
 
 import vrptw.algorithm.subproblem.AbstractPriceProblem;
+import vrptw.algorithm.subproblem.pulsealgorithm.BestPathPool.FinalPath;
 import vrptw.parameter.Parameters;
+import vrptw.problem.ArcMatrix;
+import vrptw.problem.SuccessorIndex;
 import vrptw.problem.Vertex;
 import vrptw.problem.Vrptw;
 import vrptw.solution.Path;
@@ -13,27 +22,35 @@ import vrptw.solution.Path;
  * Solve a SPPTWCC via Pulse Algorithm, <br>
  * see Leonardo Lozano, et al. (2015): <br>
  * An Exact Algorithm for the Elementary Shortest Path Problem with Resource Constraints, <br>
- * The code is based on https://github.com/dengfaheng/CGVRPTW/tree/master/CGVRPTW_DFH
+ * The code is based on https://github.com/dengfaheng/CGVRPTW/tree/master/CGVRPTW_DFH <br>
+ * Pulse 阶段在 fork/join 线程池中执行，任意深度的子树都可以拆分为新任务由空闲线程窃取，
+ * 见 {@link PulseTask}.
  * 
  * @author Xiong Wangqi
  * @version V1.0
  * @since JDK1.8
  */
 public class EspptwccViaPulse extends AbstractPriceProblem {
+    /** 所有 pulse 类算法的实例共享的 fork/join 线程池，线程数量为 {@link Parameters#THREAD_NUM}. */
+    static final ForkJoinPool PULSE_POOL = new ForkJoinPool(Parameters.THREAD_NUM);
+    
     /** 用于记录 Pulse Algorithm 中各个节点的信息. */
     private PulseVertex[] pulseVertexes;
     
-    /** 存储所有的到达了 end depot 且 revised cost 最小的 path. */
-    private ArrayList<ArrayList<Integer>> allFinalShortestPaths;
+    /** 
+     * Pulse 阶段找到的到达 end depot 的路径及 incumbent，
+     * 求解结束后只保留 revised cost 最小的 {@link Parameters#PULSE_COLUMN_NUM} 条路径.
+     */
+    private BestPathPool bestPaths;
     
     /** lowest bound found in bound scheme without considering initial demand at start node. */
     private double relaxationBound;
     /** minimum of cost/time ratio among all arcs. */
     private double naiveBound;
     
-    /** time limit lower bound in bound scheme. */
+    /** time limit lower bound in bound scheme，根据时间窗的分布选择，见 {@link #initBoundGranularity()}. */
     private double timeLimitLb;
-    /** time step in bound scheme. */
+    /** time step in bound scheme，根据时间窗的分布选择，bound 剪枝效果较差时减小. */
     private double timeStep;
     /** every node have an initial time consumption in each iteration of bound scheme. */
     private double initialTimeConsumption;
@@ -41,9 +58,50 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
     /** max time index to store the bound matrix. */
     private int maxTimeIndex;
     
-    /** threads for pulse. */
-    private Thread[] threads;
-    private int threadNum;
+    /** 各节点的可行后继节点，按 revised cost 从小到大排列，使 pulse 尽早找到较好的路径. */
+    private int[][] orderedSuccessors;
+    /** 排序时使用的缓冲区. */
+    private long[] sortKeys;
+    
+    /** 上一次求解使用的对偶变量，下标为节点 ID. */
+    private double[] prevDuals;
+    /** 各节点的 bound 是否由上一次求解的结果平移得到，无需重新计算. */
+    private boolean[] isBoundKept;
+    /**
+     * 各节点的 bound 自上一次计算以来累计的偏差：平移量与对偶变量减少量（此时 bound 未平移但变松）之和，
+     * 超过 {@link Parameters#PULSE_BOUND_TOLERANCE} 时重新计算.
+     */
+    private double[] boundDrifts;
+    /** 上一次计算 bound 时的时间矩阵，为 null 时不能沿用上一次的 bound. */
+    private ArcMatrix boundTimeMatrix;
+    /** 上一次计算 bound 时的后继节点索引. */
+    private SuccessorIndex boundSuccessorIndex;
+    /** 上一次计算 bound 时的时间窗，时间窗改变后不能沿用上一次的 bound. */
+    private double[] boundEarliestTimes;
+    private double[] boundLatestTimes;
+    
+    /** Pulse 阶段检查的节点数量的预算，0 表示不限制. */
+    private long pulseNumBudget;
+    /** Pulse 阶段的时间预算（毫秒），0 表示不限制. */
+    private long timeBudget;
+    /** 本次求解中 pulse 阶段开始的时间. */
+    private long pulseStartTime;
+    /** 本次求解中各线程已汇报的检查过的节点数量. */
+    private AtomicLong pulseNum;
+    /** 本次求解的预算是否已耗尽，耗尽后各线程停止搜索. */
+    private volatile boolean isBudgetExhausted;
+    
+    /** 是否使用 pulse with queue，见 {@link #setQueueing(boolean)}. */
+    private boolean isQueueing;
+    /** Pulse with queue 中暂停的 pulse，按 bound 从小到大排列，修改时需要加锁. */
+    private PriorityQueue<PulseTask> queuedPulses;
+    
+    /** Bound scheme 和 Pulse 阶段各工作线程的路径状态，在多次求解之间重复使用. */
+    private ThreadLocal<PulseState> pulseStates;
+    /** 所有工作线程的路径状态，用于汇总统计信息. */
+    private ConcurrentLinkedQueue<PulseState> allPulseStates;
+    /** 上一次求解的统计信息，尚未求解时为 null. */
+    private PulseStatistics statistics;
 
     /**
      * Create a Instance EspptwccViaPulse.
@@ -53,14 +111,8 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
     public EspptwccViaPulse(Vrptw originVrptwIns) {
         super(originVrptwIns);
         
-        timeStep = Parameters.TIME_STEP;
-        timeLimitLb = Parameters.TIME_LIMIT_LB;
-        
-        double timeUb = originVrptwIns.getVertexes().get(vertexNum - 1).getLatestTime();
-        timeUb += timeStep;
-        timeUb -= timeUb % timeStep;
-        maxTimeIndex = (int) (timeUb / timeStep);
-        int boundNum = (int) ((timeUb - timeLimitLb) / timeStep) + 1;
+        this.initBoundGranularity();
+        int boundNum = this.calBoundNum();
         
         pulseVertexes = new PulseVertex[vertexNum];
         int count = 0;
@@ -69,93 +121,398 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
             count++;
         }
         
-        allFinalShortestPaths = new ArrayList<>(Parameters.INITIAL_CAPACITY);
+        orderedSuccessors = new int[vertexNum][];
+        sortKeys = new long[vertexNum];
+        prevDuals = new double[vertexNum];
+        isBoundKept = new boolean[vertexNum];
+        boundDrifts = new double[vertexNum];
         
-        threadNum = Parameters.THREAD_NUM;
-        threads = new Thread[threadNum];
-        for (int i = 0; i < threadNum; i++) {
-            threads[i] = new Thread();
-        }
+        bestPaths = new BestPathPool();
+        pulseNum = new AtomicLong();
+        queuedPulses = new PriorityQueue<>(Parameters.INITIAL_CAPACITY, (a, b) -> Double.compare(a.bound, b.bound));
         
+        allPulseStates = new ConcurrentLinkedQueue<>();
+        pulseStates = ThreadLocal.withInitial(() -> {
+            PulseState state = new PulseState(vertexNum, maskWordNum);
+            state.followerMask = followerMask;
+            allPulseStates.add(state);
+            return state;
+        });
     }
     
     @Override
     public void updateVrptwIns(Vrptw vrptwInsTwChanged) {
-        double timeUb = vrptwInsTwChanged.getVertexes().get(vertexNum - 1).getLatestTime();
+        this.updateTimeWindows(vrptwInsTwChanged);
+        
+        // 节点的需求和服务时间不受时间窗分支的影响，只需在 end depot 的最晚时间改变时调整 bound 数组的长度
+        this.resizeBounds();
+    }
+    
+    private void resizeBounds() {
+        int boundNum = this.calBoundNum();
+        for (PulseVertex v : pulseVertexes) {
+            if (v.bounds.length != boundNum) {
+                v.bounds = new double[boundNum];
+            }
+        }
+    }
+    
+    /**
+     * 根据时间窗的分布选择 bound scheme 的粒度：<br>
+     * 1 {@link #timeLimitLb} 为计划期长度的 {@link Parameters#PULSE_TIME_LIMIT_RATIO} 倍 <br>
+     * 2 {@link #timeStep} 为客户平均时间窗宽度的 1 / {@link Parameters#PULSE_STEPS_PER_WINDOW}，
+     * 且 bound 的数量不超过 {@link Parameters#PULSE_MAX_BOUND_NUM}，取整数以免下标计算的浮点误差.
+     */
+    private void initBoundGranularity() {
+        double horizon = latestTimes[vertexNum - 1];
+        double widthSum = 0;
+        for (int i = 1; i < vertexNum - 1; i++) {
+            widthSum += latestTimes[i] - earliestTimes[i];
+        }
+        double avgWidth = widthSum / Math.max(vertexNum - 2, 1);
+        
+        timeLimitLb = Math.floor(horizon * Parameters.PULSE_TIME_LIMIT_RATIO);
+        timeStep = Math.max(avgWidth / Parameters.PULSE_STEPS_PER_WINDOW,
+                (horizon - timeLimitLb) / Parameters.PULSE_MAX_BOUND_NUM);
+        timeStep = Math.max(Math.ceil(timeStep), 1);
+    }
+    
+    /**
+     * 上一次求解的 pulse 阶段中被 bound 剪枝的节点比例低于 {@link Parameters#PULSE_WEAK_PRUNE_RATIO} 时，
+     * 将 {@link #timeStep} 和 {@link #timeLimitLb} 减半，之后的求解使用更细的 bound. <br>
+     * 与 {@link #initBoundGranularity()} 相同，bound 的数量不超过 {@link Parameters#PULSE_MAX_BOUND_NUM}，
+     * 达到上限后不再调整；上一次求解因预算耗尽提前停止时，统计信息不完整，也不调整.
+     */
+    private void refineBoundGranularity() {
+        if (statistics == null || isBudgetExhausted || timeStep <= 1
+                || statistics.pulseNum < Parameters.PULSE_REFINE_MIN_NODE_NUM
+                || statistics.boundPhase2PrunedNum >= statistics.pulseNum * Parameters.PULSE_WEAK_PRUNE_RATIO) {
+            return;
+        }
+        
+        double horizon = latestTimes[vertexNum - 1];
+        double newTimeLimitLb = Math.floor(timeLimitLb / 2);
+        double newTimeStep = Math.max(Math.floor(timeStep / 2),
+                Math.ceil((horizon - newTimeLimitLb) / Parameters.PULSE_MAX_BOUND_NUM));
+        newTimeStep = Math.max(newTimeStep, 1);
+        if (newTimeStep >= timeStep) {
+            return;
+        }
+        
+        timeStep = newTimeStep;
+        timeLimitLb = newTimeLimitLb;
+        this.resizeBounds();
+        // 粒度改变后不能沿用上一次的 bound
+        boundTimeMatrix = null;
+    }
+    
+    /**
+     * 设置 pulse 阶段的预算，超出任一预算时停止搜索，返回已找到的路径并标记为启发式求解的结果，
+     * 见 {@link #isSolvedExactly()}. Bound scheme 不受预算限制.
+     * 
+     * @param pulseNumBudget 检查的节点数量的预算，0 表示不限制
+     * @param timeBudget     时间预算（毫秒），0 表示不限制
+     */
+    public void setBudget(long pulseNumBudget, long timeBudget) {
+        if (pulseNumBudget < 0 || timeBudget < 0) {
+            throw new IllegalArgumentException("The budget should be non-negative");
+        }
+        
+        this.pulseNumBudget = pulseNumBudget;
+        this.timeBudget = timeBudget;
+    }
+    
+    /**
+     * 设置是否使用 pulse with queue：pulse 阶段的路径每增加 {@link Parameters#PULSE_QUEUE_DEPTH} 个节点暂停一次，
+     * 存入按 bound（revised cost 的乐观估计）排序的队列，当前子树搜索完成后从队列中 bound 最小的 pulse 继续搜索. <br>
+     * 客户较多时深度优先搜索可能长时间停留在没有希望的子树中，按 bound 优先搜索可以更快地改进 incumbent；
+     * 队列的容量为 {@link Parameters#PULSE_QUEUE_CAPACITY}，队列已满时继续深度优先搜索，内存占用有上限.
+     * 
+     * @param isQueueing 是否使用 pulse with queue，默认为 false
+     */
+    public void setQueueing(boolean isQueueing) {
+        this.isQueueing = isQueueing;
+    }
+    
+    @Override
+    public void solveExactly(Map<Integer, Double> lambda) {
+        long currPulseNumBudget = pulseNumBudget;
+        long currTimeBudget = timeBudget;
+        this.setBudget(0, 0);
+        try {
+            this.solve(lambda);
+        } finally {
+            this.setBudget(currPulseNumBudget, currTimeBudget);
+        }
+    }
+    
+    @Override
+    public boolean isSolvedExactly() {
+        return !isBudgetExhausted;
+    }
+    
+    /**
+     * 根据 end depot 的最晚时间计算 {@link #maxTimeIndex} 及每个节点的 bound 数量.
+     * 
+     * @return 每个节点的 bound 数量
+     */
+    private int calBoundNum() {
+        double timeUb = latestTimes[vertexNum - 1];
         timeUb += timeStep;
         timeUb -= timeUb % timeStep;
         maxTimeIndex = (int) (timeUb / timeStep);
-        int boundNum = (int) ((timeUb - timeLimitLb) / timeStep) + 1;
-        
-        int count = 0;
-        for (Vertex v: vrptwInsTwChanged.getVertexes()) {
-            pulseVertexes[count] = new PulseVertex(v, boundNum);
-            count++;
-        }
         
+        return (int) ((timeUb - timeLimitLb) / timeStep) + 1;
     }
     
     /**
      * Solve an ESPPTWCC via pulse algorithm: <br>
-     * Step 0: Initialization <br>
+     * Step 0: Initialization，沿用或重置上一次求解的 bound，见 {@link #warmStartBounds(Map)} <br>
      * Step 1: bounding Scheme <br>
      * Step 2: Pulse from start depot <br>
-     * Step 4: Filtering.
+     * Step 4: Filtering. <br>
+     * 求解结束后可以通过 {@link #getStatistics()} 获取本次求解的统计信息.
      * 
      * @param lambda dual values
      */
     @Override
     public void solve(Map<Integer, Double> lambda) {
+        this.refineBoundGranularity();
         this.reset();
+        this.warmStartBounds(lambda);
         
         this.updateDistAndCostMatrix(lambda);
+        this.sortSuccessors();
         
         // Step 1: Bound Scheme
+        long boundingStartNanos = System.nanoTime();
         boundingScheme();
-        
-        // 恢复 PulseVertex 的 isVisited[0] = false，准备开始 Pulse
-        for (int i = 0; i < vertexNum; i++) {
-            pulseVertexes[i].isVisited[0] = false;
-        }
+        long boundingNanos = System.nanoTime() - boundingStartNanos;
         
         // Step 2: Pulse from start depot
         // set initialTimeConsumption to the last value solved
         this.initialTimeConsumption += this.timeStep;
         // propagate the pulse from the start depot
-        this.pulse(0, 0, 0, 0, 0, new ArrayList<Integer>());
+        this.pulseStartTime = System.currentTimeMillis();
+        long pulseStartNanos = System.nanoTime();
+        PULSE_POOL.invoke(isQueueing ? new QueueTask() : new PulseTask(0, 0, 0, 0, new int[0], Integer.MAX_VALUE));
+        this.statistics = this.collectStatistics(boundingNanos, System.nanoTime() - pulseStartNanos);
         
-        // Step 3: get shortest path
-        for (ArrayList<Integer> vertexIds : allFinalShortestPaths) {
-            this.shortestPaths.add(new Path(vrptwIns, vertexIds));
+        // Step 3: get shortest paths，保留最短的 K 条路径及与第 K 条路径 revised cost 相同的路径
+        ArrayList<FinalPath> finalPaths = bestPaths.getBestPaths();
+        for (FinalPath finalPath : finalPaths) {
+            this.shortestPaths.add(new Path(vrptwIns, finalPath.vertexIds));
         }
+        revisedCostOfShortestPath = finalPaths.isEmpty() ? 0 : finalPaths.get(0).cost;
     }
     
     @Override
     protected void reset() {
-        // 重置 pulseVertexes 信息，包括各个节点的 minCost 和 bound matrix
-        for (int i = 0; i < vertexNum; i++) {
-            pulseVertexes[i].reset();
-        }
-        
         // 重置 navieBound
         naiveBound = Double.MAX_VALUE;
         // 重置 relaxation Bound
         relaxationBound = 0;
         
         // 重置 initialTimeConsumption
-        initialTimeConsumption = pulseVertexes[vertexNum - 1].latestTime;
+        initialTimeConsumption = latestTimes[vertexNum - 1];
         initialTimeConsumption += timeStep;
         initialTimeConsumption -= initialTimeConsumption % timeStep;
 
         // 清空 shortest path 信息
         this.revisedCostOfShortestPath = 0;
-        this.allFinalShortestPaths.clear();
+        this.bestPaths.clear();
+        
+        // 重置预算
+        this.pulseNum.set(0);
+        this.isBudgetExhausted = false;
         this.shortestPaths.clear();
+        // 预算耗尽时队列中可能还有暂停的 pulse
+        this.queuedPulses.clear();
+        
+        // 清空各线程的统计信息和 dominance table，对偶变量改变后原有的 revised cost 不再有效；
+        // 时间窗分支后后续节点位图可能改变
+        for (PulseState state : allPulseStates) {
+            state.resetStatistics();
+            state.clearDominanceTables();
+            state.followerMask = followerMask;
+        }
+    }
+    
+    /**
+     * 汇总各工作线程的统计信息.
+     * 
+     * @param boundingNanos Bound scheme 的耗时（纳秒）
+     * @param pulseNanos    Pulse 阶段的耗时（纳秒）
+     * @return 本次求解的统计信息
+     */
+    private PulseStatistics collectStatistics(long boundingNanos, long pulseNanos) {
+        PulseStatistics stat = new PulseStatistics();
+        stat.boundingNanos = boundingNanos;
+        stat.pulseNanos = pulseNanos;
+        
+        ArrayList<Long> workerBusyNanos = new ArrayList<>(Parameters.THREAD_NUM);
+        for (PulseState state : allPulseStates) {
+            stat.boundPulseNum += state.boundPulseNum;
+            stat.pulseNum += state.pulseNum;
+            stat.timeWindowPrunedNum += state.timeWindowPrunedNum;
+            stat.capacityPrunedNum += state.capacityPrunedNum;
+            stat.cyclePrunedNum += state.cyclePrunedNum;
+            stat.boundPhase1PrunedNum += state.boundPhase1PrunedNum;
+            stat.boundPhase2PrunedNum += state.boundPhase2PrunedNum;
+            stat.rollBackPrunedNum += state.rollBackPrunedNum;
+            stat.queuedPulseNum += state.queuedPulseNum;
+            stat.dominancePrunedNum += state.dominancePrunedNum;
+            if (state.busyNanos > 0) {
+                workerBusyNanos.add(state.busyNanos);
+            }
+        }
+        stat.workerBusyNanos = workerBusyNanos.stream().mapToLong(Long::longValue).toArray();
+        
+        return stat;
+    }
+    
+    /**
+     * @return 上一次求解的统计信息，尚未求解时为 null.
+     */
+    public PulseStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 将各节点的可行后继节点按 revised cost 从小到大排序，结果存入 {@link #orderedSuccessors}. <br>
+     * 排序键的高 32 位为 revised cost 的 float 表示（变换为按整数比较的顺序），低 32 位为节点 ID，
+     * 直接对 long 数组排序，revised cost 相同时按节点 ID 排列.
+     */
+    private void sortSuccessors() {
+        for (int i = 0; i < vertexNum; i++) {
+            int[] successors = successorIndex.getSuccessors(i);
+            int num = successors.length;
+            for (int k = 0; k < num; k++) {
+                int j = successors[k];
+                int bits = Float.floatToIntBits((float) revisedCostMatrix.get(i, j));
+                bits ^= (bits >> 31) & Integer.MAX_VALUE;
+                sortKeys[k] = ((long) bits << 32) | j;
+            }
+            Arrays.sort(sortKeys, 0, num);
+            
+            if (orderedSuccessors[i] == null || orderedSuccessors[i].length != num) {
+                orderedSuccessors[i] = new int[num];
+            }
+            for (int k = 0; k < num; k++) {
+                orderedSuccessors[i][k] = (int) sortKeys[k];
+            }
+        }
+    }
+    
+    /**
+     * 在时间窗未改变、且可行弧只减少不增加（如进入分支定价的子节点）时沿用上一次求解的 bound. <br>
+     * 禁止弧只会使从各节点出发的最短路径的 revised cost 增大，上一次求解的 bound 仍是合法的下界，
+     * 见 {@link #calRemovedArcTails()}；{@link Parameters#PULSE_TIGHTEN_UPSTREAM_BOUNDS} 为 true 时，
+     * 重置可能经过被禁止的弧的节点（被禁止的弧的起点及可能出现在其之前的节点）的 bound，其余节点的 bound 不变. <br>
+     * 对偶变量 lambda_i 增加 delta_i 时，从节点 v 出发的路径的 revised cost 至多减少 v 及其后续节点
+     * （见 {@link Vrptw#getFollowerMask()}）的 max(delta_i, 0) 之和，将 v 的 bound 减去该值仍是合法的下界；
+     * 对偶变量减少时 bound 不变，仍是合法的下界，但比重新计算的 bound 弱. 
+     * v 的 bound 自上一次计算以来的累计偏差（v 及其后续节点的 |delta_i| 之和）超过
+     * {@link Parameters#PULSE_BOUND_TOLERANCE} 时下界太弱，重置 v 的 bound，在 bound scheme 中重新计算.
+     * 
+     * @param lambda dual values
+     */
+    private void warmStartBounds(Map<Integer, Double> lambda) {
+        long[] removedArcTails = null;
+        if (boundTimeMatrix != null && boundEarliestTimes == earliestTimes && boundLatestTimes == latestTimes) {
+            removedArcTails = this.calRemovedArcTails();
+        }
+        boolean canWarmStart = removedArcTails != null;
+        boundTimeMatrix = timeMatrix;
+        boundSuccessorIndex = successorIndex;
+        boundEarliestTimes = earliestTimes;
+        boundLatestTimes = latestTimes;
+        
+        // 对偶变量的改变量，depot 没有对偶变量
+        double[] deltas = new double[vertexNum];
+        for (Map.Entry<Integer, Double> entry : lambda.entrySet()) {
+            int id = entry.getKey();
+            deltas[id] = entry.getValue() - prevDuals[id];
+            prevDuals[id] = entry.getValue();
+        }
+        
+        for (int v = 0; v < vertexNum - 1; v++) {
+            PulseVertex pulseVertex = pulseVertexes[v];
+            double shift = Math.max(deltas[v], 0);
+            double drift = Math.abs(deltas[v]);
+            for (int w = 0; w < maskWordNum; w++) {
+                long word = followerMask[v * maskWordNum + w];
+                while (word != 0) {
+                    double delta = deltas[(w << 6) + Long.numberOfTrailingZeros(word)];
+                    shift += Math.max(delta, 0);
+                    drift += Math.abs(delta);
+                    word &= word - 1;
+                }
+            }
+            boundDrifts[v] += drift;
+            
+            isBoundKept[v] = canWarmStart && boundDrifts[v] <= Parameters.PULSE_BOUND_TOLERANCE
+                    && !(Parameters.PULSE_TIGHTEN_UPSTREAM_BOUNDS && this.isUpstream(v, removedArcTails));
+            if (isBoundKept[v]) {
+                pulseVertex.shift(shift);
+                relaxationBound = Math.min(relaxationBound, pulseVertex.minCost);
+            } else {
+                pulseVertex.reset();
+                boundDrifts[v] = 0;
+            }
+        }
     }
 
+    /**
+     * 比较当前与上一次求解时的时间矩阵和后继节点索引，得到分支新禁止的弧.
+     * 
+     * @return 新禁止的弧的起点的位图；不能沿用上一次的 bound 时（出现了新的可行弧或可行弧的行驶时间改变）返回 null
+     */
+    private long[] calRemovedArcTails() {
+        long[] removedArcTails = new long[maskWordNum];
+        if (boundTimeMatrix == timeMatrix && boundSuccessorIndex == successorIndex) {
+            return removedArcTails;
+        }
+        
+        for (int i = 0; i < vertexNum; i++) {
+            for (int j : successorIndex.getSuccessors(i)) {
+                if (!boundSuccessorIndex.isFeasibleArc(i, j) || timeMatrix.get(i, j) != boundTimeMatrix.get(i, j)) {
+                    return null;
+                }
+            }
+            for (int j : boundSuccessorIndex.getSuccessors(i)) {
+                if (!successorIndex.isFeasibleArc(i, j)) {
+                    removedArcTails[i >>> 6] |= 1L << i;
+                    break;
+                }
+            }
+        }
+        
+        return removedArcTails;
+    }
+    
+    /**
+     * @param v               节点 ID
+     * @param removedArcTails 新禁止的弧的起点的位图
+     * @return 从 v 出发的路径是否可能经过新禁止的弧
+     */
+    private boolean isUpstream(int v, long[] removedArcTails) {
+        if ((removedArcTails[v >>> 6] & (1L << v)) != 0) {
+            return true;
+        }
+        for (int w = 0; w < maskWordNum; w++) {
+            if ((followerMask[v * maskWordNum + w] & removedArcTails[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * Calculate bounds store the minimum revised cost that can be achieved, by any partial path P that
      * reaches node v[i] with a given amount of consumed resource. <br>
+     * 同一次迭代中各节点的 bound 只依赖于之前迭代的结果，因此各节点在 fork/join 线程池中并行计算，
+     * 见 {@link BoundTask}；{@link #relaxationBound} 在每次迭代结束后更新.
      */
     private void boundingScheme() {
         this.calNaiveBound();
@@ -166,13 +523,11 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
         while (initialTimeConsumption >= timeLimitLb) {
             timeIndex = (int) Math.ceil(initialTimeConsumption / timeStep);
             
-            for (int currVertexId = 0; currVertexId < vertexNum - 1; currVertexId++) {
-                // 从 ID = i 的节点处发出脉冲
-                pulseInBound(currVertexId, 0, 0, initialTimeConsumption, new ArrayList<Integer>(), currVertexId);
-
-                // 更新该节点的 bound
-                PulseVertex v = pulseVertexes[currVertexId];
-                v.bounds[maxTimeIndex - timeIndex] = v.minCost;
+            // 从 bound 未被沿用的每个节点处发出脉冲，并更新该节点的 bound
+            PULSE_POOL.invoke(new BoundTask(0, vertexNum - 1, maxTimeIndex - timeIndex));
+            
+            for (int i = 0; i < vertexNum - 1; i++) {
+                relaxationBound = Math.min(relaxationBound, pulseVertexes[i].minCost);
             }
             
             initialTimeConsumption -= timeStep;
@@ -181,165 +536,283 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
     }
 
     /**
-     * Pulse for bound scheme.
+     * Pulse for bound scheme，以 {@link PulseState} 作为显式栈进行深度优先搜索.
      * 
+     * @param state        当前线程的路径状态，路径为空
+     * @param rootVertexId 路径的出发节点
+     * @param time         到达出发节点的时间
+     */
+    private void pulseInBound(PulseState state, int rootVertexId, double time) {
+        this.tryToEnterInBound(state, rootVertexId, 0, 0, time, rootVertexId);
+        
+        while (state.depth > 0) {
+            int depth = state.depth - 1;
+            int currVertexId = state.path[depth];
+            int[] successors = orderedSuccessors[currVertexId];
+            int k = state.successorCursors[depth];
+            if (k == successors.length) {
+                // Remove the explored node from the path
+                state.pop();
+                continue;
+            }
+            state.successorCursors[depth] = k + 1;
+            
+            // Propagate the pulse through all the feasible outgoing arcs
+            int j = successors[k];
+            if ((state.reachableMasks[depth * maskWordNum + (j >>> 6)] & (1L << j)) == 0) {
+                state.cyclePrunedNum++;
+                continue;
+            }
+            
+            double newCost = state.costs[depth] + revisedCostMatrix.get(currVertexId, j);
+            // 注意增加的是 j 点的需求量
+            double newDemand = state.demands[depth] + pulseVertexes[j].demand;
+            double newTime = state.times[depth] + pulseVertexes[currVertexId].serviceTime
+                    + timeMatrix.get(currVertexId, j);
+
+            // Check demand and time window feasibility
+            if (newDemand > capacity) {
+                state.capacityPrunedNum++;
+                continue;
+            }
+            if (newTime > latestTimes[j]) {
+                state.timeWindowPrunedNum++;
+                continue;
+            }
+            
+            if (j == vertexNum - 1) {
+                tryToUpdateRelaxationBound(newCost, newDemand, newTime, rootVertexId);
+            } else {
+                this.tryToEnterInBound(state, j, newCost, newDemand, newTime, rootVertexId);
+            }
+        }
+    }
+    
+    /**
+     * Bound scheme 中检查能否将给定节点加入路径，可以时将其压入 {@link PulseState}.
+     * 
+     * @param state        当前线程的路径状态
      * @param currVertexId 当前节点 ID
      * @param cost         到达当前节点的 revised Cost
      * @param demand       到达当前节点时已服务的需求量
      * @param time         到达当前节点的时间
-     * @param partialPath  路径上的节点（不包含 rootVertexId）
      * @param rootVertexId 路径的出发节点
      */
-    private void pulseInBound(int currVertexId, double cost, double demand, double time, ArrayList<Integer> partialPath,
+    private void tryToEnterInBound(PulseState state, int currVertexId, double cost, double demand, double time,
             int rootVertexId) {
-        PulseVertex currPulseVertex = pulseVertexes[currVertexId];
-        
         // check time window feasibility and cycle to prune
-        if (time > currPulseVertex.latestTime || currPulseVertex.isVisited[0]) {
+        if (time > latestTimes[currVertexId]) {
+            state.timeWindowPrunedNum++;
+            return;
+        }
+        if (state.isVisited(currVertexId)) {
+            state.cyclePrunedNum++;
             return;
         }
+        state.boundPulseNum++;
 
-        if (time < currPulseVertex.earliestTime) {
-            time = currPulseVertex.earliestTime;
+        if (time < earliestTimes[currVertexId]) {
+            time = earliestTimes[currVertexId];
         }
 
         // check bound to prune
         if (calBoundPhase1(currVertexId, time, rootVertexId) + cost >= pulseVertexes[rootVertexId].minCost) {
+            state.boundPhase1PrunedNum++;
             return;
         }
 
         // roll back to prune
-        if (rollBack(currVertexId, cost, time, partialPath)) {
+        if (rollBack(currVertexId, cost, state)) {
+            state.rollBackPrunedNum++;
             return;
         }
 
-        currPulseVertex.isVisited[0] = true;
-        partialPath.add(currVertexId);
+        state.push(currVertexId, cost, demand, time);
+    }
 
-        // Propagate the pulse through all the outgoing arcs
-        for (int j = 1; j < vertexNum; j++) {
-            if (j == currVertexId) {
+    /**
+     * Pulse stage，以 {@link PulseState} 作为显式栈进行深度优先搜索. <br>
+     * 当前线程的任务队列中积压的任务少于 {@link Parameters#PULSE_SURPLUS_TASK_NUM} 时，
+     * 后续节点的子树拆分为新任务，否则在当前线程中继续搜索.
+     * 
+     * @param state        当前线程的路径状态，已包含出发节点之前的部分路径
+     * @param forkedTasks  当前任务拆分出的子任务，由当前任务在结束前等待
+     * @param currVertexId 出发节点 ID
+     * @param cost         到达出发节点的 revised cost
+     * @param demand       到达出发节点时已服务的需求量
+     * @param time         到达出发节点的时间
+     */
+    private void pulse(PulseState state, ArrayList<PulseTask> forkedTasks, int currVertexId, double cost,
+            double demand, double time) {
+        int baseDepth = state.depth;
+        this.tryToEnter(state, currVertexId, cost, demand, time);
+
+        // 预算耗尽时直接停止，路径状态由 PulseTask 清除
+        while (state.depth > baseDepth && !isBudgetExhausted) {
+            int depth = state.depth - 1;
+            currVertexId = state.path[depth];
+            int[] successors = orderedSuccessors[currVertexId];
+            int k = state.successorCursors[depth];
+            if (k == successors.length) {
+                // Remove the explored node from the path
+                state.pop();
                 continue;
             }
+            state.successorCursors[depth] = k + 1;
 
-            double newCost = cost + revisedCostMatrix[currVertexId][j];
-            // 注意增加的是 j 点的需求量
-            double newDemand = demand + pulseVertexes[j].demand;
-            double newTime = time + currPulseVertex.serviceTime + timeMatrix[currVertexId][j];
+            // Propagate the pulse through all the feasible outgoing arcs
+            int j = successors[k];
+            // j 已被访问或不可能出现在路径上某个节点之后
+            if ((state.reachableMasks[depth * maskWordNum + (j >>> 6)] & (1L << j)) == 0) {
+                state.cyclePrunedNum++;
+                continue;
+            }
+            
+            double newCost = state.costs[depth] + revisedCostMatrix.get(currVertexId, j);
+            double newDemand = state.demands[depth] + pulseVertexes[j].demand;
+            double newTime = state.times[depth] + pulseVertexes[currVertexId].serviceTime
+                    + timeMatrix.get(currVertexId, j);
 
             // Check demand and time window feasibility
-            if (newDemand > capacity || newTime > pulseVertexes[j].latestTime) {
+            if (newDemand > capacity) {
+                state.capacityPrunedNum++;
                 continue;
             }
-            
+            if (newTime > latestTimes[j]) {
+                state.timeWindowPrunedNum++;
+                continue;
+            }
+
             if (j == vertexNum - 1) {
-                tryToUpdateRelaxationBound(newCost, newDemand, newTime, partialPath, rootVertexId);
-            } else {
-                pulseInBound(j, newCost, newDemand, newTime, partialPath, rootVertexId);
+                tryToUpdateShortestPath(newCost, newDemand, newTime, state);
+                continue;
             }
 
+            if (PulseTask.getSurplusQueuedTaskCount() < Parameters.PULSE_SURPLUS_TASK_NUM) {
+                PulseTask task = new PulseTask(j, newCost, newDemand, newTime,
+                        Arrays.copyOf(state.path, state.depth), state.depthLimit);
+                task.fork();
+                forkedTasks.add(task);
+            } else {
+                this.tryToEnter(state, j, newCost, newDemand, newTime);
+            }
         }
-
-        // Remove the explored node from the path
-        partialPath.remove(partialPath.size() - 1);
-        currPulseVertex.isVisited[0] = false;
     }
-
+    
     /**
-     * Pulse stage.
+     * Pulse 阶段检查能否将给定节点加入路径，可以时将其压入 {@link PulseState}.
      * 
-     * @param threadId     线程 ID
+     * @param state        当前线程的路径状态
      * @param currVertexId 当前节点 ID
      * @param cost         到达当前节点的 revised cost
      * @param demand       到达当前节点时已服务的需求量
      * @param time         到达当前节点的时间
-     * @param partialPath  partialPath 路径上的节点（不包含 rootVertexId）
      */
-    private void pulse(int threadId, int currVertexId, double cost, double demand, double time,
-            ArrayList<Integer> partialPath) {
-
-        PulseVertex currPulseVertex = pulseVertexes[currVertexId];
-        if (time < currPulseVertex.earliestTime) {
-            time = currPulseVertex.earliestTime;
+    private void tryToEnter(PulseState state, int currVertexId, double cost, double demand, double time) {
+        if (time < earliestTimes[currVertexId]) {
+            time = earliestTimes[currVertexId];
         }
 
         // check cycle, bound and roll back to prune
-        if (currPulseVertex.isVisited[threadId] 
-                || calBoundPhase2(currVertexId, time) + cost >= revisedCostOfShortestPath
-                || rollBack(currVertexId, cost, time, partialPath)) {
+        if (state.isVisited(currVertexId)) {
+            state.cyclePrunedNum++;
             return;
         }
-
-        currPulseVertex.isVisited[threadId] = true;
-        partialPath.add(currVertexId);
-
-        // Propagate the pulse through all the outgoing arcs
-        double newCost;
-        double newDemand;
-        double newTime;
-        for (int j = 1; j < vertexNum; j++) {
-            if (j == currVertexId) {
-                continue;
-            }
-            
-            newCost = cost + revisedCostMatrix[currVertexId][j];
-            newDemand = demand + pulseVertexes[j].demand;
-            newTime = time + currPulseVertex.serviceTime + timeMatrix[currVertexId][j];
-
-            // Check demand and time window feasibility
-            if (newDemand > capacity || newTime > pulseVertexes[j].latestTime) {
-                continue;
-            }
-
-            if (j == vertexNum - 1) {
-                tryToUpdateShortestPath(threadId, newCost, newDemand, newTime, partialPath);
-                continue;
+        state.pulseNum++;
+        if ((state.pulseNum & (Parameters.PULSE_BUDGET_CHECK_INTERVAL - 1)) == 0) {
+            this.checkBudget();
+        }
+        double bound = calBoundPhase2(currVertexId, time) + cost;
+        if (bound >= bestPaths.getIncumbent()) {
+            state.boundPhase2PrunedNum++;
+            return;
+        }
+        if (rollBack(currVertexId, cost, state)) {
+            state.rollBackPrunedNum++;
+            return;
+        }
+        
+        // pulse with queue：路径达到深度阈值时暂停，继续搜索时再检查 dominance
+        if (state.depth >= state.depthLimit && this.tryToQueue(state, currVertexId, cost, demand, time, bound)) {
+            state.queuedPulseNum++;
+            return;
+        }
+        
+        if (Parameters.PULSE_DOMINANCE_TABLE_SIZE > 0) {
+            int maskOffset = state.updateReachableMask(state.depth, currVertexId);
+            if (state.isDominated(currVertexId, cost, demand, time, maskOffset)) {
+                state.dominancePrunedNum++;
+                return;
             }
+            state.record(currVertexId, cost, demand, time, maskOffset);
+        }
 
-            // If not in the start node continue the exploration on the current thread
-            if (currVertexId != 0) {
-                pulse(threadId, j, newCost, newDemand, newTime, partialPath);
-                continue;
+        state.push(currVertexId, cost, demand, time);
+    }
+    
+    /**
+     * Pulse with queue 中暂停到达给定节点的 pulse，存入 {@link #queuedPulses}，
+     * 继续搜索时深度阈值增加 {@link Parameters#PULSE_QUEUE_DEPTH}.
+     * 
+     * @param state        当前线程的路径状态（不包含当前节点）
+     * @param currVertexId 当前节点 ID
+     * @param cost         到达当前节点的 revised cost
+     * @param demand       到达当前节点时已服务的需求量
+     * @param time         到达当前节点的时间
+     * @param bound        经过当前路径的路径的 revised cost 的下界
+     * @return 是否已暂停，队列已满时返回 false
+     */
+    private boolean tryToQueue(PulseState state, int currVertexId, double cost, double demand, double time,
+            double bound) {
+        synchronized (queuedPulses) {
+            if (queuedPulses.size() >= Parameters.PULSE_QUEUE_CAPACITY) {
+                return false;
             }
-
-            // If standing in the start node, wait for the next available thread to trigger the exploration
-            boolean stopLooking = false;
-            for (int t = 1; t < threadNum; t++) {
-                if (!threads[t].isAlive()) {
-                    threads[t] = new Thread(new PulseTask(t, j, newCost, newDemand, newTime, partialPath));
-                    threads[t].start();
-
-                    stopLooking = true;
+            
+            PulseTask task = new PulseTask(currVertexId, cost, demand, time, Arrays.copyOf(state.path, state.depth),
+                    state.depth + Parameters.PULSE_QUEUE_DEPTH);
+            task.bound = bound;
+            queuedPulses.add(task);
+            return true;
+        }
+    }
+    
+    /**
+     * 从 {@link #queuedPulses} 中取出 bound 最小的至多 {@link Parameters#THREAD_NUM} 个 pulse，
+     * bound 不小于 incumbent 的 pulse 不再需要搜索，直接丢弃.
+     * 
+     * @return 继续搜索的 pulse，队列中没有需要搜索的 pulse 时为空
+     */
+    private ArrayList<PulseTask> pollQueuedPulses() {
+        ArrayList<PulseTask> tasks = new ArrayList<>(Parameters.THREAD_NUM);
+        synchronized (queuedPulses) {
+            while (tasks.size() < Parameters.THREAD_NUM && !queuedPulses.isEmpty()) {
+                PulseTask task = queuedPulses.poll();
+                if (task.bound >= bestPaths.getIncumbent()) {
+                    // 其余 pulse 的 bound 更大
+                    queuedPulses.clear();
                     break;
                 }
+                tasks.add(task);
             }
-
-            if (!stopLooking) {
-                try {
-                    threads[1].join();
-                    threads[1] = new Thread(new PulseTask(1, j, newCost, newDemand, newTime, partialPath));
-                    threads[1].start();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-
         }
+        
+        return tasks;
+    }
 
-        // Wait for all active threads to finish
-        if (currVertexId == 0) {
-            try {
-                for (int t = 1; t < threadNum; t++) {
-                    this.threads[t].join();
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    /**
+     * 每个线程每检查 {@link Parameters#PULSE_BUDGET_CHECK_INTERVAL} 个节点汇报一次，并检查预算是否耗尽.
+     */
+    private void checkBudget() {
+        if (pulseNumBudget == 0 && timeBudget == 0) {
+            return;
+        }
+        
+        long currPulseNum = pulseNum.addAndGet(Parameters.PULSE_BUDGET_CHECK_INTERVAL);
+        if (pulseNumBudget > 0 && currPulseNum >= pulseNumBudget
+                || timeBudget > 0 && System.currentTimeMillis() - pulseStartTime >= timeBudget) {
+            isBudgetExhausted = true;
         }
-
-        // Remove the explored node from the path
-        partialPath.remove(partialPath.size() - 1);
-        currPulseVertex.isVisited[threadId] = false;
     }
 
     /**
@@ -348,12 +821,12 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
     private void calNaiveBound() {
         for (int i = 0; i < vertexNum; i++) {
             for (int j = 0; j < vertexNum; j++) {
-                double time = pulseVertexes[i].serviceTime + timeMatrix[i][j];
+                double time = pulseVertexes[i].serviceTime + timeMatrix.get(i, j);
                 if (time == 0) {
                     continue;
                 }
                 
-                double temp = revisedCostMatrix[i][j] / time;
+                double temp = revisedCostMatrix.get(i, j) / time;
                 if (temp <= this.naiveBound) {
                     this.naiveBound = temp;
                 }
@@ -368,21 +841,20 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
      * 
      * @param currVertexId 当前节点
      * @param cost         到达当前节点的 revised cost
-     * @param time         到达当前节点的时间
-     * @param partialPath  给定路径（不包含 currVertexId）
+     * @param state        当前路径（不包含 currVertexId）
      * @return 是否“剪枝”
      */
-    private boolean rollBack(int currVertexId, double cost, double time, ArrayList<Integer> partialPath) {
-        int size = partialPath.size();
+    private boolean rollBack(int currVertexId, double cost, PulseState state) {
+        int size = state.depth;
         if (size <= 1) {
             return false;
         }
         
-        int preVertexId = partialPath.get(size - 1);
-        int directVertexId = partialPath.get(size - 2);
+        int preVertexId = state.path[size - 1];
+        int directVertexId = state.path[size - 2];
         
-        double directCost = cost - revisedCostMatrix[preVertexId][currVertexId]
-                - revisedCostMatrix[directVertexId][preVertexId] + revisedCostMatrix[directVertexId][currVertexId];
+        double directCost = cost - revisedCostMatrix.get(preVertexId, currVertexId)
+                - revisedCostMatrix.get(directVertexId, preVertexId) + revisedCostMatrix.get(directVertexId, currVertexId);
         if (directCost <= cost) {
             return true;
         }
@@ -400,9 +872,9 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
      */
     private double calBoundPhase1(int currVertexId, double time, int rootVertexId) {
         double bound = 0;
-        // 在bound scheme 的每一次迭代中，id 小的节点的 bound 会先计算完成
+        // 在bound scheme 的每一次迭代中，各节点的 bound 并行计算，除沿用的 bound 外本次迭代的 bound 均视为未完成
         // 每次迭代每个点的初始耗时都等于当前的 initialTimeConsumption 值，且相邻两次迭代的节点初始耗时相差 timeStep
-        if (currVertexId >= rootVertexId && time < initialTimeConsumption + timeStep) {
+        if (!isBoundKept[currVertexId] && time < initialTimeConsumption + timeStep) {
             // currVertex 的 bound 还未计算完成，且到达当前节点的时间较小
             // bound = 后续路径的理想成本 + 目前得到的最优路径 revised cost
             bound = (initialTimeConsumption + timeStep - time) * naiveBound + relaxationBound;
@@ -417,29 +889,23 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
     }
 
     /**
-     * {@link #boundingScheme} 阶段找到了到达 end depot 的路径，尝试更新 {@link #revisedCostOfShortestPath}.
+     * {@link #boundingScheme} 阶段找到了到达 end depot 的路径，尝试更新从 rootVertex 出发的最短路径的 revised cost，
+     * 只有计算 rootVertex 的 bound 的线程会调用.
      * 
      * @param cost         到达 end depot 的 revised Cost
      * @param demand       到达 end depot 时已服务的需求量
      * @param time         到达 end depot 的时间
-     * @param partialPath  路径上的节点（不包含 rootVertexId）
      * @param rootVertexId 路径的出发节点
      */
-    private void tryToUpdateRelaxationBound(double cost, double demand, double time, ArrayList<Integer> partialPath,
-            int rootVertexId) {
+    private void tryToUpdateRelaxationBound(double cost, double demand, double time, int rootVertexId) {
         // 是否可行
-        if (demand > capacity || time > pulseVertexes[vertexNum - 1].latestTime) {
+        if (demand > capacity || time > latestTimes[vertexNum - 1]) {
             return;
         }
         
         // 更新从 rootVertex 出发的最短路径的 revised cost
         if (cost < pulseVertexes[rootVertexId].minCost) {
             pulseVertexes[rootVertexId].minCost = cost;
-
-            // 更新 relaxationBound
-            if (cost < relaxationBound) {
-                relaxationBound = cost;
-            }
         }
         
     }
@@ -466,87 +932,427 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
     }
 
     /**
-     * {@link #pulse} 阶段找到了到达 end depot 的路径，尝试更新最短路径.
+     * {@link #pulse} 阶段找到了到达 end depot 的路径，尝试更新 incumbent 并记录路径，多个线程可能同时调用.
      * 
-     * @param threadId    线程 ID
      * @param cost        到达 end depot 的 revised cost
      * @param demand      到达 end depot 时已经服务的需求量
      * @param time        到达 end depot 的时间
-     * @param partialPath 路径上的节点（不包含 end depot ID）
+     * @param state       当前路径（不包含 end depot）
      */
-    private void tryToUpdateShortestPath(int threadId, double cost, double demand, double time,
-            ArrayList<Integer> partialPath) {
+    private void tryToUpdateShortestPath(double cost, double demand, double time, PulseState state) {
         
         // 是否可行
-        if (demand > capacity || time > pulseVertexes[vertexNum - 1].latestTime) {
-            return;
-        }
-
-        if (cost < revisedCostOfShortestPath) {
-            revisedCostOfShortestPath = cost;
-            ArrayList<Integer> finalPath = new ArrayList<Integer>(partialPath);
-            finalPath.add(vertexNum - 1);
-            this.allFinalShortestPaths.clear();
-            this.allFinalShortestPaths.add(finalPath);
-
+        if (demand > capacity || time > latestTimes[vertexNum - 1]) {
             return;
         }
 
-        // 记录所有 revised cost 最小的路径的节点信息
-        if (cost == revisedCostOfShortestPath) {
-            ArrayList<Integer> finalPath = new ArrayList<Integer>(partialPath);
-            finalPath.add(vertexNum - 1);
-            this.allFinalShortestPaths.add(finalPath);
+        // 记录所有 revised cost 不大于 incumbent 的路径，较差的路径在求解结束后过滤
+        if (cost <= bestPaths.getIncumbent()) {
+            ArrayList<Integer> vertexIds = new ArrayList<Integer>(state.depth + 1);
+            for (int i = 0; i < state.depth; i++) {
+                vertexIds.add(state.path[i]);
+            }
+            vertexIds.add(vertexNum - 1);
+            bestPaths.offer(cost, vertexIds);
         }
     }
 
     /**
-     * Thread for pulse stage.
+     * Pulse 阶段的任务：从给定的部分路径出发继续 pulse，可以被任意工作线程窃取执行. <br>
+     * 执行前根据部分路径恢复当前线程的路径状态，结束前等待拆分出的所有子任务.
      * 
      * @author Xiong Wangqi
      * @version V1.0
      * @since JDK1.8
      */
-    private class PulseTask implements Runnable {
-        /** 线程索引. */
-        int threadId;
+    private class PulseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
         /** 当前节点 ID. */
-        int currVertexId;
+        final int currVertexId;
         /** 到达当前节点的 revised cost. */
-        double cost;
+        final double cost;
         /** 到达当前节点时已服务的需求量. */
-        double demand;
+        final double demand;
         /** 到达当前节点的时间. */
-        double time;
+        final double time;
         /** 路径经过的节点（不包含当前节点）. */
-        ArrayList<Integer> partialPath;
+        final int[] partialPath;
+        /** 路径中的节点数量达到该值时暂停 pulse，只在 pulse with queue 中使用. */
+        final int depthLimit;
+        /** 暂停时经过当前路径的路径的 revised cost 的下界，用于 {@link #queuedPulses} 的排序. */
+        double bound;
 
         /**
          * Create a Instance PulseTask.
          * 
-         * @param threadId     线程 ID
          * @param currVertexId 当前节点 ID
          * @param cost         到达当前节点的 revised cost
          * @param demand       到达当前节点时已服务的需求量
          * @param time         到达当前节点的时间
          * @param partialPath  路径经过的节点（不包含当前节点）
+         * @param depthLimit   路径中的节点数量达到该值时暂停 pulse，不使用 pulse with queue 时为 Integer.MAX_VALUE
          */
-        PulseTask(int threadId, int currVertexId, double cost, double demand, double time,
-                ArrayList<Integer> partialPath) {
-            this.threadId = threadId;
+        PulseTask(int currVertexId, double cost, double demand, double time, int[] partialPath, int depthLimit) {
             this.currVertexId = currVertexId;
             this.cost = cost;
             this.demand = demand;
             this.time = time;
-            this.partialPath = new ArrayList<>(partialPath);
+            this.partialPath = partialPath;
+            this.depthLimit = depthLimit;
         }
 
         @Override
-        public void run() {
-            pulse(threadId, currVertexId, cost, demand, time, partialPath);
+        protected void compute() {
+            PulseState state = pulseStates.get();
+            long startNanos = System.nanoTime();
+            state.enter(partialPath);
+            state.depthLimit = depthLimit;
+            
+            ArrayList<PulseTask> forkedTasks = new ArrayList<>(Parameters.INITIAL_CAPACITY);
+            pulse(state, forkedTasks, currVertexId, cost, demand, time);
+            
+            state.leave();
+            // 等待子任务的时间不计入
+            state.busyNanos += System.nanoTime() - startNanos;
+            
+            // 当前线程的路径状态已恢复，等待子任务时可以执行其他任务
+            for (int i = forkedTasks.size() - 1; i >= 0; i--) {
+                forkedTasks.get(i).join();
+            }
         }
     }
+    
+    /**
+     * Pulse with queue 的任务：从 start depot 出发搜索到深度阈值，之后每次从队列中取出 bound 最小的一批 pulse 继续搜索，
+     * 直到队列为空或预算耗尽.
+     * 
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private class QueueTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
+        @Override
+        protected void compute() {
+            new PulseTask(0, 0, 0, 0, new int[0], Parameters.PULSE_QUEUE_DEPTH).invoke();
+            
+            while (!isBudgetExhausted) {
+                ArrayList<PulseTask> tasks = pollQueuedPulses();
+                if (tasks.isEmpty()) {
+                    return;
+                }
+                invokeAll(tasks);
+            }
+        }
+    }
+    
+    /**
+     * Bound scheme 一次迭代中的任务：计算 ID 在 [fromVertexId, toVertexId) 中的节点的 bound，
+     * 区间二分直到只包含一个节点.
+     * 
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private class BoundTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        final int fromVertexId;
+        final int toVertexId;
+        /** 本次迭代的 bound 在 bounds 数组中的位置. */
+        final int boundIndex;
+        
+        BoundTask(int fromVertexId, int toVertexId, int boundIndex) {
+            this.fromVertexId = fromVertexId;
+            this.toVertexId = toVertexId;
+            this.boundIndex = boundIndex;
+        }
+
+        @Override
+        protected void compute() {
+            if (toVertexId - fromVertexId > 1) {
+                int mid = (fromVertexId + toVertexId) >>> 1;
+                invokeAll(new BoundTask(fromVertexId, mid, boundIndex), new BoundTask(mid, toVertexId, boundIndex));
+                return;
+            }
+            if (isBoundKept[fromVertexId]) {
+                return;
+            }
+            
+            PulseState state = pulseStates.get();
+            long startNanos = System.nanoTime();
+            pulseInBound(state, fromVertexId, initialTimeConsumption);
+            PulseVertex v = pulseVertexes[fromVertexId];
+            v.bounds[boundIndex] = v.minCost;
+            state.busyNanos += System.nanoTime() - startNanos;
+        }
+    }
+    
+    /**
+     * 一个线程中当前路径的状态，同时作为深度优先搜索的显式栈：第 depth 层保存路径上第 depth 个节点、
+     * 到达该节点时的 revised cost、需求量和时间，以及下一个要检查的后继节点的位置. <br>
+     * 所有数组在创建时按最大路径长度分配，搜索过程中不再分配内存. <br>
+     * 路径状态保存在共享线程池的工作线程的 ThreadLocal 中，因此不引用 {@link EspptwccViaPulse} 实例，
+     * 否则每个求解器实例都无法被回收.
+     * 
+     * @author Xiong Wangqi
+     * @version V1.0
+     * @since JDK1.8
+     */
+    private static class PulseState {
+        final int vertexNum;
+        final int maskWordNum;
+        /** 当前求解使用的后续节点位图，见 {@link AbstractPriceProblem#followerMask}. */
+        long[] followerMask;
+        
+        /** 当前路径上的节点数量. */
+        int depth;
+        final int[] path;
+        final double[] costs;
+        final double[] demands;
+        final double[] times;
+        /** 各层下一个要检查的后继节点在 {@link #orderedSuccessors} 中的位置. */
+        final int[] successorCursors;
+        
+        /** 当前路径上的节点的位图. */
+        final long[] visited;
+        /** 
+         * 当前路径上每一层的可达节点位图，第 depth 层为路径上前 depth + 1 个节点的后续节点位图的交集，
+         * 位于 [depth * maskWordNum, (depth + 1) * maskWordNum).
+         */
+        final long[] reachableMasks;
+        
+        /** 当前线程在本次求解中的统计信息，只由当前线程修改，求解结束后汇总，见 {@link PulseStatistics}. */
+        long boundPulseNum;
+        long pulseNum;
+        long timeWindowPrunedNum;
+        long capacityPrunedNum;
+        long cyclePrunedNum;
+        long boundPhase1PrunedNum;
+        long boundPhase2PrunedNum;
+        long rollBackPrunedNum;
+        long queuedPulseNum;
+        long dominancePrunedNum;
+        long busyNanos;
+        
+        /** 当前任务的深度阈值，见 {@link PulseTask#depthLimit}. */
+        int depthLimit;
+        
+        /**
+         * 当前线程在本次求解的 pulse 阶段中最近到达各节点的状态，每个节点至多
+         * {@link Parameters#PULSE_DOMINANCE_TABLE_SIZE} 个，节点 v 的第 i 个状态位于 v * tableSize + i.
+         * 表中的状态之间可能存在支配关系. <br>
+         * 状态 a 支配状态 b 当且仅当 a 的 revised cost 小于 b，a 的需求量和到达时间都不大于 b，且 b 的可达节点都是 a 的可达节点，
+         * 此时 b 的任意可行延伸都是 a 的可行延伸，且 revised cost 大于 a 的延伸.
+         * 求解返回 {@link Parameters#PULSE_COLUMN_NUM} 条最短路径，b 被该数量的状态支配时，
+         * b 的任意延伸都不会进入最短路径，因此 b 不需要继续搜索.
+         */
+        final double[] tableCosts;
+        final double[] tableDemands;
+        final double[] tableTimes;
+        /** 各状态的可达节点位图，第 k 个状态位于 [k * maskWordNum, (k + 1) * maskWordNum). */
+        final long[] tableMasks;
+        /** 各状态最近一次被插入或支配其他状态的时间戳，表满时替换时间戳最小的状态. */
+        final long[] tableStamps;
+        /** 各节点已记录的状态数量. */
+        final int[] tableSizes;
+        long tableClock;
+        
+        PulseState(int vertexNum, int maskWordNum) {
+            this.vertexNum = vertexNum;
+            this.maskWordNum = maskWordNum;
+            
+            path = new int[vertexNum];
+            costs = new double[vertexNum];
+            demands = new double[vertexNum];
+            times = new double[vertexNum];
+            successorCursors = new int[vertexNum];
+            visited = new long[maskWordNum];
+            reachableMasks = new long[vertexNum * maskWordNum];
+            
+            int tableSize = Parameters.PULSE_DOMINANCE_TABLE_SIZE;
+            tableCosts = new double[vertexNum * tableSize];
+            tableDemands = new double[vertexNum * tableSize];
+            tableTimes = new double[vertexNum * tableSize];
+            tableMasks = new long[vertexNum * tableSize * maskWordNum];
+            tableStamps = new long[vertexNum * tableSize];
+            tableSizes = new int[vertexNum];
+        }
+        
+        void resetStatistics() {
+            boundPulseNum = 0;
+            pulseNum = 0;
+            timeWindowPrunedNum = 0;
+            capacityPrunedNum = 0;
+            cyclePrunedNum = 0;
+            boundPhase1PrunedNum = 0;
+            boundPhase2PrunedNum = 0;
+            rollBackPrunedNum = 0;
+            queuedPulseNum = 0;
+            dominancePrunedNum = 0;
+            busyNanos = 0;
+        }
+        
+        void clearDominanceTables() {
+            Arrays.fill(tableSizes, 0);
+            tableClock = 0;
+        }
+        
+        /**
+         * 判断到达给定节点的状态是否被 dominance table 中的至少 {@link Parameters#PULSE_COLUMN_NUM} 个状态支配.
+         * 
+         * @param vertexId   当前节点 ID
+         * @param cost       到达当前节点的 revised cost
+         * @param demand     到达当前节点时已服务的需求量
+         * @param time       到达当前节点的时间
+         * @param maskOffset 当前状态的可达节点位图在 {@link #reachableMasks} 中的起始位置
+         * @return 是否被支配
+         */
+        boolean isDominated(int vertexId, double cost, double demand, double time, int maskOffset) {
+            int from = vertexId * Parameters.PULSE_DOMINANCE_TABLE_SIZE;
+            int to = from + tableSizes[vertexId];
+            if (to - from < Parameters.PULSE_COLUMN_NUM) {
+                return false;
+            }
+            
+            int dominatorNum = 0;
+            for (int k = from; k < to; k++) {
+                if (tableCosts[k] < cost && tableDemands[k] <= demand && tableTimes[k] <= time
+                        && this.isSubset(reachableMasks, maskOffset, tableMasks, k * maskWordNum)) {
+                    tableStamps[k] = ++tableClock;
+                    dominatorNum++;
+                }
+            }
+            
+            return dominatorNum >= Parameters.PULSE_COLUMN_NUM;
+        }
+        
+        /**
+         * 将未被剪枝的状态加入 dominance table：替换一个被其支配的状态，否则加入表中，表满时替换最久未使用的状态.
+         * 
+         * @param vertexId   当前节点 ID
+         * @param cost       到达当前节点的 revised cost
+         * @param demand     到达当前节点时已服务的需求量
+         * @param time       到达当前节点的时间
+         * @param maskOffset 当前状态的可达节点位图在 {@link #reachableMasks} 中的起始位置
+         */
+        void record(int vertexId, double cost, double demand, double time, int maskOffset) {
+            int from = vertexId * Parameters.PULSE_DOMINANCE_TABLE_SIZE;
+            int to = from + tableSizes[vertexId];
+            int target = -1;
+            for (int k = from; k < to; k++) {
+                if (cost <= tableCosts[k] && demand <= tableDemands[k] && time <= tableTimes[k]
+                        && this.isSubset(tableMasks, k * maskWordNum, reachableMasks, maskOffset)) {
+                    target = k;
+                    break;
+                }
+            }
+            if (target == -1) {
+                if (to - from < Parameters.PULSE_DOMINANCE_TABLE_SIZE) {
+                    target = to;
+                    tableSizes[vertexId]++;
+                } else {
+                    target = from;
+                    for (int k = from + 1; k < to; k++) {
+                        if (tableStamps[k] < tableStamps[target]) {
+                            target = k;
+                        }
+                    }
+                }
+            }
+            
+            tableCosts[target] = cost;
+            tableDemands[target] = demand;
+            tableTimes[target] = time;
+            tableStamps[target] = ++tableClock;
+            System.arraycopy(reachableMasks, maskOffset, tableMasks, target * maskWordNum, maskWordNum);
+        }
+        
+        /**
+         * @return a 中从 aOffset 开始的位图是否为 b 中从 bOffset 开始的位图的子集
+         */
+        private boolean isSubset(long[] a, int aOffset, long[] b, int bOffset) {
+            for (int w = 0; w < maskWordNum; w++) {
+                if ((a[aOffset + w] & ~b[bOffset + w]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        boolean isVisited(int vertexId) {
+            return (visited[vertexId >>> 6] & (1L << vertexId)) != 0;
+        }
+        
+        /**
+         * 计算第 depth 层的可达节点位图：上一层的位图与当前节点的后续节点位图的交集，
+         * 路径上已访问的节点不在任何节点的后续节点位图中，因此也不可达.
+         * 
+         * @param depth        当前节点在路径上的位置（路径上在其之前的节点数量）
+         * @param currVertexId 当前节点 ID
+         * @return 第 depth 层的位图在 {@link #reachableMasks} 中的起始位置
+         */
+        int updateReachableMask(int depth, int currVertexId) {
+            int offset = depth * maskWordNum;
+            int followerOffset = currVertexId * maskWordNum;
+            if (depth == 0) {
+                System.arraycopy(followerMask, followerOffset, reachableMasks, offset, maskWordNum);
+            } else {
+                for (int w = 0; w < maskWordNum; w++) {
+                    reachableMasks[offset + w] = reachableMasks[offset - maskWordNum + w]
+                            & followerMask[followerOffset + w];
+                }
+            }
+            
+            return offset;
+        }
+        
+        /**
+         * 将节点加入路径末尾.
+         */
+        void push(int vertexId, double cost, double demand, double time) {
+            visited[vertexId >>> 6] |= 1L << vertexId;
+            this.updateReachableMask(depth, vertexId);
+            path[depth] = vertexId;
+            costs[depth] = cost;
+            demands[depth] = demand;
+            times[depth] = time;
+            successorCursors[depth] = 0;
+            depth++;
+        }
+        
+        /**
+         * 移除路径末尾的节点.
+         */
+        void pop() {
+            depth--;
+            visited[path[depth] >>> 6] &= ~(1L << path[depth]);
+        }
+        
+        /**
+         * 由部分路径恢复路径状态，部分路径上的节点不再搜索，只需恢复路径和位图.
+         */
+        void enter(int[] partialPath) {
+            for (int vertexId : partialPath) {
+                visited[vertexId >>> 6] |= 1L << vertexId;
+                this.updateReachableMask(depth, vertexId);
+                path[depth] = vertexId;
+                depth++;
+            }
+        }
+        
+        /**
+         * 清除部分路径留下的状态，供下一个任务使用.
+         */
+        void leave() {
+            while (depth > 0) {
+                this.pop();
+            }
+        }
+    }
+    
     /**
      * Pulse Vertex class for pulse algorithm.
      * 
@@ -557,12 +1363,6 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
     private class PulseVertex {
         final double demand;
         final double serviceTime;
-        final double earliestTime;
-        final double latestTime;
-        
-        /** 对应 Vrptw 类中的节点. */
-        /** 是否被访问过，在算法的 bound 阶段仅使用isVisited[0]，Pulse 阶段各元素分别对应不同的线程. */
-        boolean[] isVisited;
         
         /** 记录从改点出发的“最短”路径对应的 revised cost. */
         double minCost;
@@ -572,22 +1372,28 @@ public class EspptwccViaPulse extends AbstractPriceProblem {
         PulseVertex(Vertex v, int boundNum) {
             demand = v.getDemand();
             serviceTime = v.getServiceTime();
-            earliestTime = v.getEarliestTime();
-            latestTime = v.getLatestTime();
             
-            isVisited = new boolean[Parameters.THREAD_NUM];
             minCost = Double.MAX_VALUE;
             bounds = new double[boundNum];
         }
         
         void reset() {
-            for (int i = 0; i < threadNum; i++) {
-                isVisited[i] = false;
-            }
             minCost = Double.MAX_VALUE;
+            Arrays.fill(bounds, 0);
+        }
+        
+        /**
+         * 将 minCost 和所有 bound 减去给定值.
+         */
+        void shift(double delta) {
+            if (delta == 0) {
+                return;
+            }
             
-            int boundNum = bounds.length;
-            bounds = new double[boundNum];
+            minCost -= delta;
+            for (int i = 0; i < bounds.length; i++) {
+                bounds[i] -= delta;
+            }
         }
 
         @Override
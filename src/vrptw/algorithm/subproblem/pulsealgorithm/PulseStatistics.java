@@ -0,0 +1,126 @@
+package vrptw.algorithm.subproblem.pulsealgorithm;
+
+import java.util.Arrays;
+
+/**
+ * {@link EspptwccViaPulse} 一次求解的统计信息快照，用于分析 pricing 在某个算例上慢的原因. <br>
+ * 各计数器在求解过程中由每个工作线程各自累加，求解结束后汇总为本对象，不再改变. <br>
+ * 检查过的节点指通过了环路检查、需要计算 bound 的节点，其中被 bound、roll back 或 dominance 剪枝的节点不再继续搜索.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+public final class PulseStatistics {
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /** Bound scheme 中检查过的节点数量. */
+    long boundPulseNum;
+    /** Pulse 阶段检查过的节点数量. */
+    long pulseNum;
+    /** 到达时间晚于时间窗的节点数量. */
+    long timeWindowPrunedNum;
+    /** 超出车辆容量的节点数量. */
+    long capacityPrunedNum;
+    /** 已在路径上或不能出现在路径上某个节点之后的节点数量. */
+    long cyclePrunedNum;
+    /** Bound scheme 中被 bound 剪枝的节点数量. */
+    long boundPhase1PrunedNum;
+    /** Pulse 阶段被 bound 剪枝的节点数量. */
+    long boundPhase2PrunedNum;
+    /** 被 roll back 剪枝的节点数量. */
+    long rollBackPrunedNum;
+    /** Pulse with queue 中暂停的 pulse 数量. */
+    long queuedPulseNum;
+    /** 被 dominance table 中的状态支配的节点数量. */
+    long dominancePrunedNum;
+
+    /** Bound scheme 的耗时（纳秒）. */
+    long boundingNanos;
+    /** Pulse 阶段的耗时（纳秒）. */
+    long pulseNanos;
+    /** 各工作线程执行 bound scheme 和 pulse 任务的时间（纳秒）. */
+    long[] workerBusyNanos;
+
+    PulseStatistics() {}
+
+    public long getBoundPulseNum() {
+        return boundPulseNum;
+    }
+
+    public long getPulseNum() {
+        return pulseNum;
+    }
+
+    public long getTimeWindowPrunedNum() {
+        return timeWindowPrunedNum;
+    }
+
+    public long getCapacityPrunedNum() {
+        return capacityPrunedNum;
+    }
+
+    public long getCyclePrunedNum() {
+        return cyclePrunedNum;
+    }
+
+    public long getBoundPhase1PrunedNum() {
+        return boundPhase1PrunedNum;
+    }
+
+    public long getBoundPhase2PrunedNum() {
+        return boundPhase2PrunedNum;
+    }
+
+    public long getRollBackPrunedNum() {
+        return rollBackPrunedNum;
+    }
+
+    public long getQueuedPulseNum() {
+        return queuedPulseNum;
+    }
+
+    public long getDominancePrunedNum() {
+        return dominancePrunedNum;
+    }
+
+    /**
+     * @return Bound scheme 的耗时（毫秒）.
+     */
+    public double getBoundingTime() {
+        return boundingNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return Pulse 阶段的耗时（毫秒）.
+     */
+    public double getPulseTime() {
+        return pulseNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return 各工作线程执行任务的时间（毫秒），与墙钟时间比较可以看出并行的效果.
+     */
+    public double[] getWorkerBusyTimes() {
+        double[] busyTimes = new double[workerBusyNanos.length];
+        for (int i = 0; i < busyTimes.length; i++) {
+            busyTimes[i] = workerBusyNanos[i] / NANOS_PER_MILLI;
+        }
+        return busyTimes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Bounding: %d pulses, %d pruned by bound (%.1f ms)\n",
+                boundPulseNum, boundPhase1PrunedNum, this.getBoundingTime()));
+        sb.append(String.format("Pulse: %d pulses, %d pruned by bound, %d queued (%.1f ms)\n",
+                pulseNum, boundPhase2PrunedNum, queuedPulseNum, this.getPulseTime()));
+        sb.append(String.format("Pruned: %d by time window, %d by capacity, %d by cycle, %d by roll back, "
+                + "%d by dominance\n", timeWindowPrunedNum, capacityPrunedNum, cyclePrunedNum, rollBackPrunedNum,
+                dominancePrunedNum));
+        sb.append("Worker busy time (ms): ").append(Arrays.toString(this.getWorkerBusyTimes()));
+        return sb.toString();
+    }
+
+}
@@ -30,13 +30,76 @@ public class Parameters {
     public static final String SPPTWCC_LABEL_SETTING = "SPPTWCCViaLabelSetting";
     /** Use SPPTWCC as price problem of VRPTW and solve it by label algorithm. */
     public static final String ESPPTWCC_PULSE = "ESPPTWCCViaPulse";
+    /** Use ESPPTWCC as price problem of VRPTW and solve it by bidirectional pulse algorithm. */
+    public static final String ESPPTWCC_BIDIRECTIONAL_PULSE = "ESPPTWCCViaBidirectionalPulse";
+    /** Use ESPPTWCC as price problem of VRPTW and solve it by pulse algorithm with queue. */
+    public static final String ESPPTWCC_PULSE_WITH_QUEUE = "ESPPTWCCViaPulseWithQueue";
     
-    /** Threads number of Pulse Algorithm. */
-    public static final int THREAD_NUM = 10;
-    /** Time step of Pulse Algorithm. */
-    public static final double TIME_STEP = 4;
-    /** Lower time limit to stop the bounding procedure, use 50 for 100-series and 100 for 200-series. */
-    public static final double TIME_LIMIT_LB = 100;
+    /** Threads number of Pulse Algorithm, 等于可用的处理器数量. */
+    public static final int THREAD_NUM = Runtime.getRuntime().availableProcessors();
+    /** Pulse 阶段当前线程积压的任务少于该值时，将子树拆分为新任务供其他线程窃取. */
+    public static final int PULSE_SURPLUS_TASK_NUM = 2;
+    /** Pulse 节点的 bound 自上一次计算以来因对偶变量改变而累计的偏差不超过该值时，列生成的下一次迭代沿用该 bound. */
+    public static final double PULSE_BOUND_TOLERANCE = 1.0;
+    /**
+     * 分支禁止弧后，Pulse 是否重新计算可能经过被禁止的弧的节点的 bound；
+     * 为 false 时沿用所有节点的 bound（仍是合法的下界，但较弱）. <br>
+     * 计划期较长时几乎所有节点都可能出现在被禁止的弧之前，重新计算几乎所有 bound，
+     * 而更紧的 bound 对 pulse 阶段的剪枝几乎没有影响，因此默认关闭.
+     */
+    public static final boolean PULSE_TIGHTEN_UPSTREAM_BOUNDS = false;
+    /** 
+     * Pulse Algorithm 每次求解返回的 revised cost 最小的路径数量 K，K 大于 1 时以第 K 短的路径的 revised cost 剪枝，
+     * 列生成每次迭代加入更多的列.
+     */
+    public static final int PULSE_COLUMN_NUM = 10;
+    /** 分支定价中 Pulse 阶段检查的节点数量的预算，超出时返回启发式求解的结果，0 表示不限制. */
+    public static final long PULSE_NUM_BUDGET = 1000000;
+    /** 分支定价中 Pulse 阶段的时间预算（毫秒），超出时返回启发式求解的结果，0 表示不限制. */
+    public static final long PULSE_TIME_BUDGET = 0;
+    /** 每个线程每检查多少个节点检查一次预算，必须为 2 的幂. */
+    public static final int PULSE_BUDGET_CHECK_INTERVAL = 1024;
+    /** Lower time limit to stop the bounding procedure 与计划期长度之比. */
+    public static final double PULSE_TIME_LIMIT_RATIO = 0.2;
+    /** Time step of Pulse Algorithm 不大于客户平均时间窗宽度的 1 / PULSE_STEPS_PER_WINDOW. */
+    public static final double PULSE_STEPS_PER_WINDOW = 2;
+    /** 每个节点的 bound 数量的上限，计划期很长时以此限制 time step 的下限. */
+    public static final int PULSE_MAX_BOUND_NUM = 100;
+    /** Pulse 阶段被 bound 剪枝的节点比例低于该值时，减小 time step 和 time limit. */
+    public static final double PULSE_WEAK_PRUNE_RATIO = 0.2;
+    /** Pulse 阶段检查的节点数量少于该值时求解很快，不调整 bound 的粒度. */
+    public static final long PULSE_REFINE_MIN_NODE_NUM = 10000;
+    /**
+     * 双向 Pulse 中前向和后向搜索的分界时间在计划期中的位置.
+     * 路径很少用满计划期，以中点分界时后向部分路径过多，分界时间靠后时后向只需搜索路径末尾较短的一段.
+     */
+    public static final double PULSE_BIDIRECTIONAL_SPLIT_RATIO = 0.8;
+    /** Pulse with queue 中路径每增加该数量的节点暂停一次 pulse. */
+    public static final int PULSE_QUEUE_DEPTH = 6;
+    /** Pulse with queue 中暂停的 pulse 数量的上限，队列已满时继续深度优先搜索. */
+    public static final int PULSE_QUEUE_CAPACITY = 100000;
+    /** 
+     * Pulse 阶段每个线程为每个节点记录的最近到达的状态数量的上限，0 表示不使用 dominance 剪枝.
+     * 状态被 {@link #PULSE_COLUMN_NUM} 个 revised cost 更小的记录的状态支配时才剪枝，该值小于 PULSE_COLUMN_NUM 时不会剪枝.
+     */
+    public static final int PULSE_DOMINANCE_TABLE_SIZE = 20;
+    
+    /** 节点数量不少于该值时，按行分块并行计算距离矩阵. */
+    public static final int PARALLEL_MATRIX_VERTEX_NUM = 400;
+    /** 节点数量超过该值时不再存储完整的距离矩阵，改为按块计算并缓存. */
+    public static final int LAZY_MATRIX_VERTEX_NUM = 4000;
+    /** 距离矩阵按块缓存时，缓存的块数量（2 的幂），每块 64 * 64 个元素. */
+    public static final int MATRIX_CACHED_BLOCK_NUM = 1024;
+    /** 进程内共享距离矩阵和时间矩阵的不同坐标集合的最大数量，见 GeometryCache. */
+    public static final int GEOMETRY_CACHE_SIZE = 16;
+    
+    /** 预处理中时间窗缩紧的最大迭代次数. */
+    public static final int PREPROCESS_MAX_ITERATION = 20;
+    
+    /** 是否使用本地文件缓存保存预处理结果、初始解等只依赖于算例的计算结果. */
+    public static final boolean USE_ARTIFACT_CACHE = true;
+    /** 本地文件缓存的目录. */
+    public static final String ARTIFACT_CACHE_DIR = "./cache";
     
     /** Initial upper bound in the branch and bound algorithm. */
     public static final double BB_INITIAL_UPPERBOUND = Double.MAX_VALUE;
@@ -0,0 +1,110 @@
+package vrptw.problem;
+
+/**
+ * 弧上的属性矩阵（距离、时间、revised cost 等），所有元素按行优先顺序连续存放在一个一维数组中，
+ * 避免 double[][] 在内层循环中的二次寻址. <br>
+ * 超大规模算例不存储完整矩阵，见子类 {@link BlockCachedArcMatrix}.
+ * 
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+public class ArcMatrix {
+    /** 矩阵的行数（列数），即节点数量. */
+    private final int dimension;
+    /** 按行优先顺序存放的矩阵元素，(i, j) 对应 values[i * dimension + j]. */
+    private final double[] values;
+
+    /**
+     * Create a Instance ArcMatrix，元素初始值为 0.
+     * 
+     * @param dimension 矩阵的行数（列数）
+     */
+    public ArcMatrix(int dimension) {
+        this(dimension, new double[dimension * dimension]);
+    }
+
+    ArcMatrix(int dimension, double[] values) {
+        this.dimension = dimension;
+        this.values = values;
+    }
+
+    public double get(int i, int j) {
+        return values[i * dimension + j];
+    }
+
+    public void set(int i, int j, double value) {
+        values[i * dimension + j] = value;
+    }
+
+    /**
+     * 将第 row 行的所有元素加上 delta.
+     * 
+     * @param row 行索引
+     * @param delta 增量
+     */
+    public void addToRow(int row, double delta) {
+        int from = row * dimension;
+        int to = from + dimension;
+        for (int k = from; k < to; k++) {
+            values[k] += delta;
+        }
+    }
+
+    /**
+     * 复制当前矩阵，分支过程中需要修改时间矩阵时应先复制，
+     * 因为车速为 1 时时间矩阵与距离矩阵共享同一个底层数组.
+     * 
+     * @return 新的矩阵
+     */
+    public ArcMatrix copy() {
+        return new ArcMatrix(dimension, values.clone());
+    }
+
+    /**
+     * 用给定矩阵的元素覆盖当前矩阵，用于重复利用已分配的数组.
+     * 
+     * @param that 维度相同的矩阵
+     */
+    public void copyFrom(ArcMatrix that) {
+        if (that.dimension != dimension || that.values == null) {
+            throw new IllegalArgumentException(
+                    String.format("The dimension of the matrix should be %d", dimension));
+        }
+
+        System.arraycopy(that.values, 0, values, 0, values.length);
+    }
+
+    /**
+     * 将所有元素除以 divisor 得到新矩阵（例如由距离矩阵得到时间矩阵），值为 bigValue 的元素保持不变.<br>
+     * divisor 为 1 时直接返回当前矩阵，两者共享同一个底层数组.
+     * 
+     * @param divisor 除数，如车速
+     * @param bigValue 表示弧不可行的“足够大”的值
+     * @return 新的矩阵
+     */
+    public ArcMatrix divide(double divisor, double bigValue) {
+        if (divisor == 1.0) {
+            return this;
+        }
+
+        double[] newValues = new double[values.length];
+        for (int k = 0; k < values.length; k++) {
+            newValues[k] = values[k] == bigValue ? bigValue : values[k] / divisor;
+        }
+
+        return new ArcMatrix(dimension, newValues);
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+    
+    /**
+     * @return 按行优先顺序存放的底层数组，用于批量读写，不存储完整矩阵时为 null.
+     */
+    double[] getValues() {
+        return values;
+    }
+
+}
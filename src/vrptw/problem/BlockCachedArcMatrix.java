@@ -0,0 +1,219 @@
+package vrptw.problem;
+
+import java.util.Arrays;
+
+import vrptw.parameter.Parameters;
+
+/**
+ * 用于超大规模算例的距离（时间）矩阵：不存储完整的矩阵，而是按 64 * 64 的块在第一次访问时计算，
+ * 并放入直接映射的块缓存中（块 b 放在第 b % cacheSize 个位置，冲突时替换）. <br>
+ * 分支和 revised cost 对矩阵的修改记录为每行的增量和被单独设置的元素，复制矩阵时共享块缓存. <br>
+ * 被单独设置的元素按行存放在按列号升序排列的数组中，读取时二分查找，没有被单独设置的元素的行直接读取块缓存. <br>
+ * 块对象创建后不再修改，多个线程同时读取时无需加锁.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+class BlockCachedArcMatrix extends ArcMatrix {
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final double[] x;
+    private final double[] y;
+    private final double divisor;
+
+    /** 每行的块数量. */
+    private final int blocksPerRow;
+    /** 块缓存，复制得到的矩阵共享同一个缓存. */
+    private final Block[] cache;
+
+    /** 每行的增量，未调用 {@link #addToRow(int, double)} 时为 null. */
+    private double[] rowDeltas;
+    /** 每行被单独设置的元素的列号（升序），该行没有被单独设置的元素时为 null，未调用 {@link #set(int, int, double)} 时为 null. */
+    private int[][] overrideColumns;
+    /** 每行被单独设置的元素的值（减去所在行的增量后的值），与 {@link #overrideColumns} 一一对应. */
+    private double[][] overrideValues;
+    /** 每行被单独设置的元素数量. */
+    private int[] overrideNums;
+
+    /**
+     * Create a Instance BlockCachedArcMatrix.
+     *
+     * @param x 各节点的横坐标（包括 dummy end depot）
+     * @param y 各节点的纵坐标（包括 dummy end depot）
+     * @param divisor 距离除以 divisor 得到矩阵元素，如车速
+     * @param cacheSize 缓存的块数量，必须为 2 的幂
+     */
+    BlockCachedArcMatrix(double[] x, double[] y, double divisor, int cacheSize) {
+        super(x.length, null);
+        if (Integer.bitCount(cacheSize) != 1) {
+            throw new IllegalArgumentException("The cache size should be a power of 2");
+        }
+
+        this.x = x;
+        this.y = y;
+        this.divisor = divisor;
+        this.blocksPerRow = (x.length + BLOCK_MASK) >>> BLOCK_SHIFT;
+        this.cache = new Block[cacheSize];
+    }
+
+    private BlockCachedArcMatrix(BlockCachedArcMatrix that) {
+        super(that.getDimension(), null);
+        this.x = that.x;
+        this.y = that.y;
+        this.divisor = that.divisor;
+        this.blocksPerRow = that.blocksPerRow;
+        this.cache = that.cache;
+
+        this.rowDeltas = that.rowDeltas == null ? null : that.rowDeltas.clone();
+        this.copyOverrides(that);
+    }
+
+    @Override
+    public double get(int i, int j) {
+        double value;
+        int[] columns = overrideColumns == null ? null : overrideColumns[i];
+        int k = columns == null ? -1 : Arrays.binarySearch(columns, 0, overrideNums[i], j);
+        if (k >= 0) {
+            value = overrideValues[i][k];
+        } else {
+            value = this.getOriginValue(i, j);
+        }
+
+        return rowDeltas == null ? value : value + rowDeltas[i];
+    }
+
+    @Override
+    public void set(int i, int j, double value) {
+        int dimension = getDimension();
+        if (overrideColumns == null) {
+            overrideColumns = new int[dimension][];
+            overrideValues = new double[dimension][];
+            overrideNums = new int[dimension];
+        }
+        if (overrideColumns[i] == null) {
+            overrideColumns[i] = new int[Parameters.INITIAL_CAPACITY];
+            overrideValues[i] = new double[Parameters.INITIAL_CAPACITY];
+        }
+
+        int num = overrideNums[i];
+        int k = Arrays.binarySearch(overrideColumns[i], 0, num, j);
+        if (k < 0) {
+            // 插入到第一个列号大于 j 的元素的位置
+            k = -k - 1;
+            if (num == overrideColumns[i].length) {
+                overrideColumns[i] = Arrays.copyOf(overrideColumns[i], Math.min(2 * num, dimension));
+                overrideValues[i] = Arrays.copyOf(overrideValues[i], Math.min(2 * num, dimension));
+            }
+            System.arraycopy(overrideColumns[i], k, overrideColumns[i], k + 1, num - k);
+            System.arraycopy(overrideValues[i], k, overrideValues[i], k + 1, num - k);
+            overrideColumns[i][k] = j;
+            overrideNums[i]++;
+        }
+        overrideValues[i][k] = rowDeltas == null ? value : value - rowDeltas[i];
+    }
+
+    @Override
+    public void addToRow(int row, double delta) {
+        if (rowDeltas == null) {
+            rowDeltas = new double[getDimension()];
+        }
+        rowDeltas[row] += delta;
+    }
+
+    @Override
+    public ArcMatrix copy() {
+        return new BlockCachedArcMatrix(this);
+    }
+
+    @Override
+    public void copyFrom(ArcMatrix that) {
+        if (!(that instanceof BlockCachedArcMatrix) || ((BlockCachedArcMatrix) that).cache != cache) {
+            throw new IllegalArgumentException("The matrix should be a copy of the same BlockCachedArcMatrix");
+        }
+
+        BlockCachedArcMatrix other = (BlockCachedArcMatrix) that;
+        rowDeltas = other.rowDeltas == null ? null : other.rowDeltas.clone();
+        this.copyOverrides(other);
+    }
+
+    @Override
+    public ArcMatrix divide(double divisor, double bigValue) {
+        if (divisor == 1.0) {
+            return this;
+        }
+        if (rowDeltas != null || overrideColumns != null) {
+            throw new IllegalStateException("A modified BlockCachedArcMatrix can not be divided");
+        }
+
+        return new BlockCachedArcMatrix(x, y, this.divisor * divisor, cache.length);
+    }
+
+    /**
+     * 复制另一个矩阵中被单独设置的元素，各行的数组不共享.
+     */
+    private void copyOverrides(BlockCachedArcMatrix that) {
+        if (that.overrideColumns == null) {
+            overrideColumns = null;
+            overrideValues = null;
+            overrideNums = null;
+            return;
+        }
+
+        int dimension = getDimension();
+        overrideColumns = new int[dimension][];
+        overrideValues = new double[dimension][];
+        overrideNums = that.overrideNums.clone();
+        for (int i = 0; i < dimension; i++) {
+            if (that.overrideColumns[i] != null) {
+                overrideColumns[i] = that.overrideColumns[i].clone();
+                overrideValues[i] = that.overrideValues[i].clone();
+            }
+        }
+    }
+
+    /**
+     * 未被修改时的元素值，所在的块不在缓存中时计算该块并放入缓存.
+     */
+    private double getOriginValue(int i, int j) {
+        int dimension = getDimension();
+        if (i == dimension - 1 || j == 0) {
+            return Parameters.BIG_TRAVEL_TIME;
+        }
+
+        int blockId = (i >>> BLOCK_SHIFT) * blocksPerRow + (j >>> BLOCK_SHIFT);
+        int slot = blockId & (cache.length - 1);
+        Block block = cache[slot];
+        if (block == null || block.id != blockId) {
+            block = new Block(blockId);
+            cache[slot] = block;
+        }
+
+        return block.values[((i & BLOCK_MASK) << BLOCK_SHIFT) | (j & BLOCK_MASK)];
+    }
+
+    private class Block {
+        private final int id;
+        private final double[] values;
+
+        Block(int id) {
+            this.id = id;
+            this.values = new double[BLOCK_SIZE * BLOCK_SIZE];
+
+            int dimension = getDimension();
+            int fromRow = (id / blocksPerRow) << BLOCK_SHIFT;
+            int fromColumn = (id % blocksPerRow) << BLOCK_SHIFT;
+            int toRow = Math.min(fromRow + BLOCK_SIZE, dimension);
+            int toColumn = Math.min(fromColumn + BLOCK_SIZE, dimension);
+            for (int i = fromRow; i < toRow; i++) {
+                int offset = (i - fromRow) << BLOCK_SHIFT;
+                for (int j = fromColumn; j < toColumn; j++) {
+                    values[offset + j - fromColumn] = Vertex.calDistance(x[i], y[i], x[j], y[j]) / divisor;
+                }
+            }
+        }
+    }
+
+}
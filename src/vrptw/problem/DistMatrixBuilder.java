@@ -0,0 +1,100 @@
+package vrptw.problem;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import vrptw.parameter.Parameters;
+
+/**
+ * 距离矩阵的构造：<br>
+ * 1 节点数量较少时串行计算 <br>
+ * 2 节点数量不少于 {@link Parameters#PARALLEL_MATRIX_VERTEX_NUM} 时按行分块，通过 fork/join 并行计算 <br>
+ * 3 节点数量超过 {@link Parameters#LAZY_MATRIX_VERTEX_NUM} 时不存储完整矩阵，见 {@link BlockCachedArcMatrix}.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+final class DistMatrixBuilder {
+    /** 并行计算时每个任务至少负责的行数. */
+    private static final int MIN_ROWS_PER_TASK = 32;
+
+    private DistMatrixBuilder() {}
+
+    /**
+     * 构造距离矩阵，进入 start depot 的弧和从 end depot 出发的弧为 {@link Parameters#BIG_TRAVEL_TIME}.
+     *
+     * @param x 各节点的横坐标（包括 dummy end depot）
+     * @param y 各节点的纵坐标（包括 dummy end depot）
+     * @return 距离矩阵
+     */
+    static ArcMatrix build(double[] x, double[] y) {
+        int vertexNum = x.length;
+        if (vertexNum > Parameters.LAZY_MATRIX_VERTEX_NUM) {
+            return new BlockCachedArcMatrix(x, y, 1.0, Parameters.MATRIX_CACHED_BLOCK_NUM);
+        }
+
+        double[] values = new double[vertexNum * vertexNum];
+        if (vertexNum < Parameters.PARALLEL_MATRIX_VERTEX_NUM) {
+            fillRows(x, y, values, 0, vertexNum);
+        } else {
+            ForkJoinPool.commonPool().invoke(new RowBlockTask(x, y, values, 0, vertexNum));
+        }
+
+        return new ArcMatrix(vertexNum, values);
+    }
+
+    /**
+     * 计算第 [fromRow, toRow) 行.
+     */
+    private static void fillRows(double[] x, double[] y, double[] values, int fromRow, int toRow) {
+        int vertexNum = x.length;
+        for (int i = fromRow; i < toRow; i++) {
+            int offset = i * vertexNum;
+            if (i == vertexNum - 1) {
+                for (int j = 0; j < vertexNum; j++) {
+                    values[offset + j] = Parameters.BIG_TRAVEL_TIME;
+                }
+                continue;
+            }
+
+            values[offset] = Parameters.BIG_TRAVEL_TIME;
+            for (int j = 1; j < vertexNum; j++) {
+                values[offset + j] = Vertex.calDistance(x[i], y[i], x[j], y[j]);
+            }
+        }
+    }
+
+    /**
+     * 将行区间二分，直到行数不超过 {@link #MIN_ROWS_PER_TASK}，各任务写入矩阵中互不重叠的连续区域.
+     */
+    private static class RowBlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] x;
+        private final double[] y;
+        private final double[] values;
+        private final int fromRow;
+        private final int toRow;
+
+        RowBlockTask(double[] x, double[] y, double[] values, int fromRow, int toRow) {
+            this.x = x;
+            this.y = y;
+            this.values = values;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= MIN_ROWS_PER_TASK) {
+                fillRows(x, y, values, fromRow, toRow);
+                return;
+            }
+
+            int mid = (fromRow + toRow) >>> 1;
+            invokeAll(new RowBlockTask(x, y, values, fromRow, mid), new RowBlockTask(x, y, values, mid, toRow));
+        }
+    }
+
+}
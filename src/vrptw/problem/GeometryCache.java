@@ -0,0 +1,96 @@
+package vrptw.problem;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import util.Fingerprint;
+import vrptw.parameter.Parameters;
+
+/**
+ * 进程内的几何数据缓存：Solomon 同一族的算例（如 c101 - c109）节点坐标相同、只有时间窗不同，
+ * 坐标和车速相同的算例共享同一组只读的距离矩阵和时间矩阵. <br>
+ * 按最近使用的顺序最多保留 {@link Parameters#GEOMETRY_CACHE_SIZE} 组数据，
+ * 被淘汰的矩阵仍由引用它的算例持有，只是不再被新算例共享.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+final class GeometryCache {
+    private static final LinkedHashMap<String, Geometry> CACHE = new LinkedHashMap<>(
+            Parameters.GEOMETRY_CACHE_SIZE * 2, (float) Parameters.LOADER_FACTOR, true);
+
+    private GeometryCache() {}
+
+    /**
+     * 获取给定坐标和车速对应的矩阵，未命中时构造矩阵并放入缓存（构造时不持有锁）.
+     *
+     * @param x 各节点的横坐标（包括 dummy end depot）
+     * @param y 各节点的纵坐标（包括 dummy end depot）
+     * @param speed 车速
+     * @return 距离矩阵和时间矩阵
+     */
+    static Geometry get(double[] x, double[] y, double speed) {
+        String key = key(x, y, speed);
+        synchronized (CACHE) {
+            Geometry geometry = CACHE.get(key);
+            if (geometry != null) {
+                return geometry;
+            }
+        }
+
+        ArcMatrix distMatrix = DistMatrixBuilder.build(x, y);
+        // 车速为 1 时时间矩阵与距离矩阵共享同一个底层数组
+        ArcMatrix timeMatrix = distMatrix.divide(speed, Parameters.BIG_TRAVEL_TIME);
+        return put(key, new Geometry(distMatrix, timeMatrix));
+    }
+
+    /**
+     * 共享已有的矩阵（如从快照中读取的矩阵），缓存中已有相同坐标的矩阵时返回缓存中的矩阵.
+     *
+     * @param x 各节点的横坐标（包括 dummy end depot）
+     * @param y 各节点的纵坐标（包括 dummy end depot）
+     * @param speed 车速
+     * @param distMatrix 距离矩阵
+     * @param timeMatrix 时间矩阵
+     * @return 共享的距离矩阵和时间矩阵
+     */
+    static Geometry share(double[] x, double[] y, double speed, ArcMatrix distMatrix, ArcMatrix timeMatrix) {
+        return put(key(x, y, speed), new Geometry(distMatrix, timeMatrix));
+    }
+
+    private static Geometry put(String key, Geometry geometry) {
+        synchronized (CACHE) {
+            // 其他线程可能已经放入了相同坐标的矩阵
+            Geometry existing = CACHE.putIfAbsent(key, geometry);
+            if (existing != null) {
+                return existing;
+            }
+
+            Iterator<Geometry> iter = CACHE.values().iterator();
+            while (CACHE.size() > Parameters.GEOMETRY_CACHE_SIZE) {
+                iter.next();
+                iter.remove();
+            }
+            return geometry;
+        }
+    }
+
+    private static String key(double[] x, double[] y, double speed) {
+        return new Fingerprint("GEOMETRY").update(x).update(y).update(speed).toHexString();
+    }
+
+    /**
+     * 共享的距离矩阵和时间矩阵，使用者不能修改，需要修改时先复制.
+     */
+    static final class Geometry {
+        final ArcMatrix distMatrix;
+        final ArcMatrix timeMatrix;
+
+        private Geometry(ArcMatrix distMatrix, ArcMatrix timeMatrix) {
+            this.distMatrix = distMatrix;
+            this.timeMatrix = timeMatrix;
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package vrptw.problem;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Solomon / Gehring-Homberger 算例解析器：将文件映射到内存，直接从字节中解析数字到基本类型数组，
+ * 不创建中间的 String 对象. <br>
+ * 两种算例的格式相同：含有字母的词（算例名、表头等）都被跳过，前两个数字为车辆数量及容量，
+ * 之后每 7 个数字为一个节点（编号、x、y、需求、最早时间、最晚时间、服务时间），第一个节点为配送中心.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+final class SolomonParser {
+    /** 每个节点的数据项数量. */
+    private static final int FIELD_NUM = 7;
+    /** 10 的幂，用于将整数形式的尾数转换为小数，double 可以精确表示 1e22 以内的 10 的幂. */
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int k = 1; k < POWERS_OF_TEN.length; k++) {
+            POWERS_OF_TEN[k] = POWERS_OF_TEN[k - 1] * 10;
+        }
+    }
+
+    private int vehNum;
+    private double capacity;
+
+    /** 节点数量（包括配送中心，不包括 dummy end depot）. */
+    private int vertexNum;
+    private int[] numbers;
+    private double[] x;
+    private double[] y;
+    private double[] demands;
+    private double[] earliestTimes;
+    private double[] latestTimes;
+    private double[] serviceTimes;
+
+    /** 解析过程中的数字缓冲区. */
+    private double[] values;
+    private int valueNum;
+
+    /**
+     * 解析算例文件.
+     *
+     * @param filename 算例文件名
+     * @throws IOException 文件读取失败或格式错误
+     */
+    SolomonParser(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("The file %s is too large", filename));
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            // 每个数字至少占两个字节（数字和分隔符）
+            values = new double[(int) (size / 2) + 1];
+            tokenize(buffer, (int) size);
+        }
+
+        if (valueNum < 2 + FIELD_NUM || (valueNum - 2) % FIELD_NUM != 0) {
+            throw new IOException(String.format("The file %s is not a valid Solomon instance", filename));
+        }
+
+        vehNum = (int) values[0];
+        capacity = values[1];
+
+        vertexNum = (valueNum - 2) / FIELD_NUM;
+        numbers = new int[vertexNum];
+        x = new double[vertexNum];
+        y = new double[vertexNum];
+        demands = new double[vertexNum];
+        earliestTimes = new double[vertexNum];
+        latestTimes = new double[vertexNum];
+        serviceTimes = new double[vertexNum];
+
+        for (int i = 0, k = 2; i < vertexNum; i++, k += FIELD_NUM) {
+            numbers[i] = (int) values[k];
+            x[i] = values[k + 1];
+            y[i] = values[k + 2];
+            demands[i] = values[k + 3];
+            earliestTimes[i] = values[k + 4];
+            latestTimes[i] = values[k + 5];
+            serviceTimes[i] = values[k + 6];
+        }
+
+        values = null;
+    }
+
+    /**
+     * 以空白字符分词，只保留由数字、小数点及正负号组成的词.
+     *
+     * @param buffer 文件内容
+     * @param size 文件大小
+     */
+    private void tokenize(MappedByteBuffer buffer, int size) {
+        int pos = 0;
+        while (pos < size) {
+            // 跳过空白字符
+            while (pos < size && buffer.get(pos) <= ' ') {
+                pos++;
+            }
+            if (pos == size) {
+                break;
+            }
+
+            int start = pos;
+            boolean negative = false;
+            boolean numeric = true;
+            boolean hasDigit = false;
+            long mantissa = 0;
+            int scale = 0;
+            boolean afterPoint = false;
+
+            for (; pos < size; pos++) {
+                byte b = buffer.get(pos);
+                if (b <= ' ') {
+                    break;
+                }
+                if (!numeric) {
+                    continue;
+                }
+
+                if (b >= '0' && b <= '9') {
+                    hasDigit = true;
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (afterPoint) {
+                        scale++;
+                    }
+                } else if (b == '.' && !afterPoint) {
+                    afterPoint = true;
+                } else if ((b == '-' || b == '+') && pos == start) {
+                    negative = b == '-';
+                } else {
+                    numeric = false;
+                }
+            }
+
+            if (numeric && hasDigit) {
+                double value = scale < POWERS_OF_TEN.length ? mantissa / POWERS_OF_TEN[scale]
+                        : mantissa / Math.pow(10, scale);
+                addValue(negative ? -value : value);
+            }
+        }
+    }
+
+    private void addValue(double value) {
+        if (valueNum == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[valueNum++] = value;
+    }
+
+    int getVehNum() {
+        return vehNum;
+    }
+
+    double getCapacity() {
+        return capacity;
+    }
+
+    int getVertexNum() {
+        return vertexNum;
+    }
+
+    int[] getNumbers() {
+        return numbers;
+    }
+
+    double[] getX() {
+        return x;
+    }
+
+    double[] getY() {
+        return y;
+    }
+
+    double[] getDemands() {
+        return demands;
+    }
+
+    double[] getEarliestTimes() {
+        return earliestTimes;
+    }
+
+    double[] getLatestTimes() {
+        return latestTimes;
+    }
+
+    double[] getServiceTimes() {
+        return serviceTimes;
+    }
+
+}
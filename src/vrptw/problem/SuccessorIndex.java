@@ -0,0 +1,192 @@
+package vrptw.problem;
+
+import java.util.Arrays;
+
+import vrptw.parameter.Parameters;
+
+/**
+ * 可行后继节点索引：对每个节点只保存满足时间窗和容量约束的出弧，后继节点按行驶时间升序排列，
+ * 各算法遍历这些后继节点即可，无需再扫描所有节点. <br>
+ * 同时用位图记录可行弧，分支时通过 {@link #mask(ArcMatrix)} 在其基础上屏蔽被禁止的弧.
+ * 
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+public class SuccessorIndex {
+    private final int vertexNum;
+    /** 位图中每一行所占的 long 的数量. */
+    private final int wordNum;
+
+    /** successors[i] 为节点 i 的所有可行后继节点，按行驶时间升序排列. */
+    private final int[][] successors;
+    /** 可行弧的位图，弧 (i, j) 对应第 i * wordNum + j / 64 个 long 的第 j % 64 位. */
+    private final long[] arcMask;
+
+    /**
+     * 根据 VRPTW 算例建立可行后继节点索引，弧 (i, j) 可行需满足：<br>
+     * 1 i != j，且 j 不是 start depot，i 不是 end depot <br>
+     * 2 e[i] + s[i] + t[i][j] <= l[j] <br>
+     * 3 d[i] + d[j] <= Q.
+     * 
+     * @param vrptwIns VRPTW 算例
+     */
+    SuccessorIndex(Vrptw vrptwIns) {
+        vertexNum = vrptwIns.getVertexNum();
+        wordNum = (vertexNum + 63) >>> 6;
+
+        successors = new int[vertexNum][];
+        arcMask = new long[vertexNum * wordNum];
+
+        ArcMatrix timeMatrix = vrptwIns.getTimeMatrix();
+
+        Integer[] candidates = new Integer[vertexNum];
+        for (int i = 0; i < vertexNum; i++) {
+            int count = 0;
+            for (int j = 1; j < vertexNum && i != vertexNum - 1; j++) {
+                if (isFeasibleArc(vrptwIns, i, j)) {
+                    candidates[count++] = j;
+                }
+            }
+
+            // 按行驶时间升序排列，时间相同时按节点 ID 排列（排序是稳定的）
+            final int from = i;
+            Arrays.sort(candidates, 0, count, (j1, j2) -> Double.compare(timeMatrix.get(from, j1),
+                    timeMatrix.get(from, j2)));
+
+            successors[i] = new int[count];
+            for (int k = 0; k < count; k++) {
+                int j = candidates[k];
+                successors[i][k] = j;
+                arcMask[i * wordNum + (j >>> 6)] |= 1L << j;
+            }
+        }
+
+    }
+
+    /**
+     * 时间窗缩小后，只需重新检查原索引中的可行弧，后继节点的顺序保持不变.
+     * 
+     * @param vrptwIns 时间窗缩小后的 VRPTW 算例
+     * @param parentIndex 原算例的可行后继节点索引
+     */
+    SuccessorIndex(Vrptw vrptwIns, SuccessorIndex parentIndex) {
+        vertexNum = parentIndex.vertexNum;
+        wordNum = parentIndex.wordNum;
+
+        successors = new int[vertexNum][];
+        arcMask = new long[vertexNum * wordNum];
+
+        int[] buffer = new int[vertexNum];
+        for (int i = 0; i < vertexNum; i++) {
+            int count = 0;
+            for (int j : parentIndex.successors[i]) {
+                if (isFeasibleArc(vrptwIns, i, j)) {
+                    buffer[count++] = j;
+                    arcMask[i * wordNum + (j >>> 6)] |= 1L << j;
+                }
+            }
+
+            successors[i] = count == parentIndex.successors[i].length ? parentIndex.successors[i] 
+                    : Arrays.copyOf(buffer, count);
+        }
+    }
+
+    SuccessorIndex(int vertexNum, int[][] successors, long[] arcMask) {
+        this.vertexNum = vertexNum;
+        this.wordNum = (vertexNum + 63) >>> 6;
+        this.successors = successors;
+        this.arcMask = arcMask;
+    }
+
+    /**
+     * 在当前索引的基础上屏蔽分支过程中被禁止的弧（行驶时间被设置为 {@link Parameters#BIG_TRAVEL_TIME}），
+     * 只需遍历已有的可行弧，原索引不受影响.
+     * 
+     * @param branchTimeMatrix 分支后的时间矩阵
+     * @return 新的可行后继节点索引
+     */
+    public SuccessorIndex mask(ArcMatrix branchTimeMatrix) {
+        return this.filter((i, j) -> branchTimeMatrix.get(i, j) != Parameters.BIG_TRAVEL_TIME);
+    }
+
+    /**
+     * 在当前索引的基础上删除给定的弧（如预处理中被消去的弧），原索引不受影响.
+     * 
+     * @param removedArcMask 要删除的弧的位图，格式与 {@link #arcMask} 相同
+     * @return 新的可行后继节点索引
+     */
+    SuccessorIndex remove(long[] removedArcMask) {
+        return this.filter((i, j) -> (removedArcMask[i * wordNum + (j >>> 6)] & (1L << j)) == 0);
+    }
+
+    private SuccessorIndex filter(ArcFilter filter) {
+        int[][] newSuccessors = new int[vertexNum][];
+        long[] newArcMask = arcMask.clone();
+
+        int[] buffer = new int[vertexNum];
+        for (int i = 0; i < vertexNum; i++) {
+            int count = 0;
+            for (int j : successors[i]) {
+                if (!filter.isKept(i, j)) {
+                    newArcMask[i * wordNum + (j >>> 6)] &= ~(1L << j);
+                    continue;
+                }
+                buffer[count++] = j;
+            }
+
+            newSuccessors[i] = count == successors[i].length ? successors[i] : Arrays.copyOf(buffer, count);
+        }
+
+        return new SuccessorIndex(vertexNum, newSuccessors, newArcMask);
+    }
+
+    private static boolean isFeasibleArc(Vrptw vrptwIns, int i, int j) {
+        double travelTime = vrptwIns.getTimeMatrix().get(i, j);
+        if (i == j || travelTime == Parameters.BIG_TRAVEL_TIME) {
+            return false;
+        }
+
+        double[] demands = vrptwIns.getDemands();
+        return vrptwIns.getEarliestTimes()[i] + vrptwIns.getServiceTimes()[i] + travelTime 
+                <= vrptwIns.getLatestTimes()[j] && demands[i] + demands[j] <= vrptwIns.getVehicle().getCapacity();
+    }
+
+    /**
+     * 获取节点的所有可行后继节点，注意不要修改返回的数组.
+     * 
+     * @param vertexId 节点 ID
+     * @return 按行驶时间升序排列的可行后继节点
+     */
+    public int[] getSuccessors(int vertexId) {
+        return successors[vertexId];
+    }
+
+    public boolean isFeasibleArc(int fromVertexId, int toVertexId) {
+        return (arcMask[fromVertexId * wordNum + (toVertexId >>> 6)] & (1L << toVertexId)) != 0;
+    }
+
+    long[] getArcMask() {
+        return arcMask;
+    }
+
+    int getWordNum() {
+        return wordNum;
+    }
+
+    /**
+     * @return 可行弧的数量.
+     */
+    public int getArcNum() {
+        int arcNum = 0;
+        for (int[] succ : successors) {
+            arcNum += succ.length;
+        }
+        return arcNum;
+    }
+
+    private interface ArcFilter {
+        boolean isKept(int fromVertexId, int toVertexId);
+    }
+
+}
@@ -44,11 +44,25 @@ public class Vertex {
     }
     
     double getDistanceTo(Vertex v) {
-        // 保留两位小数
-        int distToRound = (int)(100 * Math.sqrt((this.x - v.x) * (this.x - v.x) + (this.y - v.y) * (this.y - v.y)));
+        return calDistance(this.x, this.y, v.x, v.y);
+    }
+    
+    /**
+     * 计算两点之间的欧式距离，保留两位小数（截断）.
+     */
+    static double calDistance(double x1, double y1, double x2, double y2) {
+        int distToRound = (int)(100 * Math.sqrt((x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2)));
         return distToRound / 100.0;
     }
     
+    double getX() {
+        return x;
+    }
+    
+    double getY() {
+        return y;
+    }
+    
     public int getId() {
         return id;
     }
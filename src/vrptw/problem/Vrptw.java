@@ -1,12 +1,11 @@
 package vrptw.problem;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import vrptw.parameter.Parameters;
+import util.Fingerprint;
 
 /**
  * VRPTW 算例的 Java 对象.
@@ -16,18 +15,46 @@ import vrptw.parameter.Parameters;
  * @since JDK1.8
  */
 public class Vrptw {
+    /** 二进制快照文件名的后缀. */
+    public static final String SNAPSHOT_SUFFIX = ".snap";
+    
     private int cusNum;
     private int vertexNum;
-    /** 存放节点及其对应的序号，Key 为 0 和 n + 1 代表配送中心，其他代表客户. */
+    /** 存放节点及其对应的序号，Key 为 0 和 n + 1 代表配送中心，其他代表客户，时间窗分支得到的算例中延迟创建. */
     private ArrayList<Vertex> vertexes;
+    /** 原始算例（未分支时间窗）中的节点，时间窗分支得到的算例与之共享. */
+    private ArrayList<Vertex> originVertexes;
+    
+    /** 各节点的需求、服务时间及时间窗，索引为节点 ID. */
+    private double[] demands;
+    private double[] serviceTimes;
+    private double[] earliestTimes;
+    private double[] latestTimes;
     
     private int vehNum;
     private Vehicle vehicle;
     
-    /** 距离矩阵，索引顺序从配送中心到客户. */
-    private double[][] distMatrix;
-    /** 时间矩阵，索引顺序从配送中心到客户. */
-    private double[][] timeMatrix;
+    /** 距离矩阵，索引顺序从配送中心到客户，坐标相同的算例共享同一个矩阵，见 {@link GeometryCache}. */
+    private ArcMatrix distMatrix;
+    /** 时间矩阵，索引顺序从配送中心到客户，车速为 1 时与距离矩阵共享同一个底层数组. */
+    private ArcMatrix timeMatrix;
+    
+    /** 可行后继节点索引，只包含满足时间窗和容量约束的弧. */
+    private SuccessorIndex successorIndex;
+    
+    /** 
+     * 各节点之后可能（不要求相邻）出现在同一条路径上的节点的位图，格式与可行弧的位图相同，
+     * 在第一次调用 {@link #getFollowerMask()} 时计算.
+     */
+    private volatile long[] followerMask;
+    
+    /** 算例内容的指纹，在第一次调用 {@link #getFingerprint()} 时计算. */
+    private String fingerprint;
+    
+    /** 是否经过了 {@link VrptwPreprocessor} 的预处理. */
+    private boolean isPreprocessed;
+    /** 不能出现在同一条路径上的客户对的位图，格式与可行弧的位图相同，为 null 时表示未检测. */
+    private long[] incompatibleMask;
     
     /**
      * Create a Instance VRPTW if branch on time windows.
@@ -36,124 +63,406 @@ public class Vrptw {
      * @param tws 新的时间窗数组
      */
     public Vrptw(Vrptw vrptwIns, TimeWindow[] tws) {
-        if (tws.length != vertexNum) {
+        this(vrptwIns, getEarliestTimes(vrptwIns, tws), getLatestTimes(tws));
+    }
+    
+    /**
+     * Create a Instance VRPTW if branch on time windows. <br>
+     * 新算例与 vrptwIns 共享节点的需求、服务时间、车辆和矩阵等数据，只保存新的时间窗，
+     * 节点对象在第一次调用 {@link #getVertexes()} 时才创建，且时间窗未改变的节点直接使用原算例中的对象.
+     * 
+     * @param vrptwIns VRPTW 实例
+     * @param earliestTimes 各节点新的最早时间
+     * @param latestTimes 各节点新的最晚时间
+     */
+    public Vrptw(Vrptw vrptwIns, double[] earliestTimes, double[] latestTimes) {
+        if (earliestTimes.length != vrptwIns.vertexNum || latestTimes.length != vrptwIns.vertexNum) {
             throw new IllegalArgumentException(
-                    String.format("The length of para tws should be %d", vrptwIns.vertexNum));
+                    String.format("The length of time windows should be %d", vrptwIns.vertexNum));
         }
         
         this.cusNum = vrptwIns.cusNum;
         this.vertexNum = vrptwIns.vertexNum;
         
-        vertexes = new ArrayList<>((int) (vertexNum / 0.75) + 1);
-        for (int i = 0; i < vertexNum; i++) {
-            vertexes.add(new Vertex(vrptwIns.vertexes.get(i), tws[i]));
-        }
+        this.originVertexes = vrptwIns.originVertexes;
+        this.demands = vrptwIns.demands;
+        this.serviceTimes = vrptwIns.serviceTimes;
+        this.earliestTimes = earliestTimes.clone();
+        this.latestTimes = latestTimes.clone();
         
         this.vehNum = vrptwIns.vehNum;
         this.vehicle = vrptwIns.vehicle;
         
         this.distMatrix = vrptwIns.distMatrix;
         this.timeMatrix = vrptwIns.timeMatrix;
+        
+        // 时间窗改变后弧的可行性也会改变，时间窗只缩小时只需检查原算例中的可行弧
+        boolean isTightened = true;
+        for (int i = 0; i < vertexNum && isTightened; i++) {
+            isTightened = this.earliestTimes[i] >= vrptwIns.earliestTimes[i] 
+                    && this.latestTimes[i] <= vrptwIns.latestTimes[i];
+        }
+        this.successorIndex = isTightened ? new SuccessorIndex(this, vrptwIns.successorIndex) 
+                : new SuccessorIndex(this);
+        
+        // 时间窗只缩小时，预处理消去的弧和检测到的不相容客户对仍然有效
+        if (isTightened) {
+            this.isPreprocessed = vrptwIns.isPreprocessed;
+            this.incompatibleMask = vrptwIns.incompatibleMask;
+        }
+    }
+    
+    private static double[] getEarliestTimes(Vrptw vrptwIns, TimeWindow[] tws) {
+        if (tws.length != vrptwIns.vertexNum) {
+            throw new IllegalArgumentException(
+                    String.format("The length of para tws should be %d", vrptwIns.vertexNum));
+        }
+        
+        double[] earliestTimes = new double[tws.length];
+        for (int i = 0; i < tws.length; i++) {
+            earliestTimes[i] = tws[i].getEarliestTime();
+        }
+        return earliestTimes;
+    }
+    
+    private static double[] getLatestTimes(TimeWindow[] tws) {
+        double[] latestTimes = new double[tws.length];
+        for (int i = 0; i < tws.length; i++) {
+            latestTimes[i] = tws[i].getLatestTime();
+        }
+        return latestTimes;
     }
     
     /**
      * Create a Instance Vrptw.
      * 
-     * @param filename Solomon 算例文件名
+     * @param filename Solomon 或 Gehring-Homberger 算例文件名
      * @throws IOException
      */
     public Vrptw(String filename) throws IOException {
-        BufferedReader bfr = new BufferedReader(new FileReader(filename));
+        SolomonParser parser = new SolomonParser(filename);
         
-        vertexes = new ArrayList<>(Parameters.INITIAL_CAPACITY);
+        // 车辆信息初始化
+        vehNum = parser.getVehNum();
+        double speed = 1.0;
+        vehicle = new Vehicle(speed, parser.getCapacity());
         
-        String line = null;
-        int count = 0;
-        while ((line = bfr.readLine()) != null) {
-            count++;
-
-            // 第 5 行是车辆数量及容量信息
-            if (count == 5) {
-                String[] str = line.trim().split("\\s+");
-                vehNum = Integer.parseInt(str[0]);
-                int vehicleCapacity = Integer.parseInt(str[1]);
-
-                // 车辆信息初始化
-                double speed = 1.0;
-                vehicle = new Vehicle(speed, vehicleCapacity);
-                continue;
-            }
-
-            if (count >= 10) {
-                String[] str = line.trim().split("\\s+");
-                if (str.length <= 1) {
-                    // 空行跳出
-                    break;
-                }
-                
-                int id = count - 10;
-                String number = str[0];
-                double xcoor = Double.parseDouble(str[1]);
-                double ycoor = Double.parseDouble(str[2]);
-                double demand = Double.parseDouble(str[3]);
-                double earliestTime = Double.parseDouble(str[4]);
-                double latestTime = Double.parseDouble(str[5]);
-                double serviceTime = Double.parseDouble(str[6]);
-                
-                Vertex vertex = new Vertex(id, number, xcoor, ycoor, demand, serviceTime, earliestTime, latestTime);
-                vertexes.add(vertex);
-            }
-
+        cusNum = parser.getVertexNum() - 1;
+        vertexNum = cusNum + 2;
+        
+        vertexes = new ArrayList<>(vertexNum);
+        int[] numbers = parser.getNumbers();
+        for (int id = 0; id <= cusNum; id++) {
+            Vertex vertex = new Vertex(id, Integer.toString(numbers[id]), parser.getX()[id], parser.getY()[id],
+                    parser.getDemands()[id], parser.getServiceTimes()[id], 
+                    parser.getEarliestTimes()[id], parser.getLatestTimes()[id]);
+            vertexes.add(vertex);
         }
-        cusNum = vertexes.size() - 1;
         
         // add dummy end depot
         Vertex depot = vertexes.get(0);
         vertexes.add(depot);
 
-        vertexNum = vertexes.size();
-
-        distMatrix = new double[vertexNum][vertexNum];
-        timeMatrix = new double[vertexNum][vertexNum];
+        setVertexAttributes();
         setDistAndTimeMatrix();
+        successorIndex = new SuccessorIndex(this);
+    }
+    
+    /**
+     * 由快照中的数据创建算例，见 {@link VrptwSnapshot}.
+     */
+    Vrptw(int vehNum, Vehicle vehicle, ArrayList<Vertex> vertexes, 
+            ArcMatrix distMatrix, ArcMatrix timeMatrix, SuccessorIndex successorIndex) {
+        this.vehNum = vehNum;
+        this.vehicle = vehicle;
+        
+        this.vertexes = vertexes;
+        this.vertexNum = vertexes.size();
+        this.cusNum = vertexNum - 2;
+        setVertexAttributes();
         
-        bfr.close();
+        double[] x = new double[vertexNum];
+        double[] y = new double[vertexNum];
+        for (int i = 0; i < vertexNum; i++) {
+            x[i] = vertexes.get(i).getX();
+            y[i] = vertexes.get(i).getY();
+        }
+        GeometryCache.Geometry geometry = GeometryCache.share(x, y, vehicle.getSpeed(), distMatrix, timeMatrix);
+        this.distMatrix = geometry.distMatrix;
+        this.timeMatrix = geometry.timeMatrix;
+        this.successorIndex = successorIndex;
+    }
+    
+    /**
+     * 读取算例，优先使用同目录下的二进制快照（文件名后加 {@value #SNAPSHOT_SUFFIX}），
+     * 快照不存在或与算例文件不对应时解析算例文件并写入快照，供下次使用.
+     * 
+     * @param filename Solomon 或 Gehring-Homberger 算例文件名
+     * @return VRPTW 算例
+     * @throws IOException
+     */
+    public static Vrptw load(String filename) throws IOException {
+        File sourceFile = new File(filename);
+        File snapshotFile = new File(filename + SNAPSHOT_SUFFIX);
+        if (VrptwSnapshot.isValid(snapshotFile, sourceFile)) {
+            return VrptwSnapshot.read(snapshotFile);
+        }
+        
+        Vrptw vrptwIns = new Vrptw(filename);
+        if (vrptwIns.distMatrix.getValues() == null) {
+            // 超大规模算例不存储完整的矩阵，也就不写入快照
+            return vrptwIns;
+        }
+        
+        try {
+            VrptwSnapshot.write(vrptwIns, snapshotFile, sourceFile);
+        } catch (IOException e) {
+            // 快照写入失败（如目录只读）不影响求解
+            System.err.println(String.format("Failed to write snapshot of %s: %s", filename, e.getMessage()));
+        }
+        
+        return vrptwIns;
+    }
+    
+    private void setVertexAttributes() {
+        originVertexes = vertexes;
+        
+        demands = new double[vertexNum];
+        serviceTimes = new double[vertexNum];
+        earliestTimes = new double[vertexNum];
+        latestTimes = new double[vertexNum];
+        for (int i = 0; i < vertexNum; i++) {
+            Vertex v = vertexes.get(i);
+            demands[i] = v.getDemand();
+            serviceTimes[i] = v.getServiceTime();
+            earliestTimes[i] = v.getEarliestTime();
+            latestTimes[i] = v.getLatestTime();
+        }
     }
     
     private void setDistAndTimeMatrix() {
+        double[] x = new double[vertexNum];
+        double[] y = new double[vertexNum];
         for (int i = 0; i < vertexNum; i++) {
-            Vertex v1 = vertexes.get(i);
-            for (int j = 0; j < vertexNum; j++) {
-                Vertex v2 = vertexes.get(j);
-                if (i == vertexNum - 1 || j == 0) {
-                    distMatrix[i][j] = Parameters.BIG_TRAVEL_TIME;
-                } else {
-                    distMatrix[i][j] = v1.getDistanceTo(v2);
+            x[i] = vertexes.get(i).getX();
+            y[i] = vertexes.get(i).getY();
+        }
+        
+        // 坐标相同的算例（如同一族的 Solomon 算例）共享矩阵
+        GeometryCache.Geometry geometry = GeometryCache.get(x, y, vehicle.getSpeed());
+        distMatrix = geometry.distMatrix;
+        timeMatrix = geometry.timeMatrix;
+    }
+        
+    /**
+     * 记录预处理的结果.
+     * 
+     * @param reducedSuccessorIndex 消去了不可行弧的后继节点索引
+     * @param incompatibleMask 不相容客户对的位图
+     */
+    void setPreprocessResult(SuccessorIndex reducedSuccessorIndex, long[] incompatibleMask) {
+        this.successorIndex = reducedSuccessorIndex;
+        this.incompatibleMask = incompatibleMask;
+        this.isPreprocessed = true;
+    }
+    
+    /**
+     * 获取各节点的后续节点位图：节点 j 可以出现在节点 i 之后（不要求相邻）时，
+     * 第 i * {@link #getMaskWordNum()} + j / 64 个 long 的第 j % 64 位为 1，注意不要修改返回的数组. <br>
+     * 三角不等式成立时（见 {@link #isTriangleSatisfied()}），只需检查 depot - i - j - depot 是否满足容量和时间窗约束，
+     * 否则只检查容量约束.
+     * 
+     * @return 后续节点位图
+     */
+    public long[] getFollowerMask() {
+        long[] mask = followerMask;
+        if (mask != null) {
+            return mask;
+        }
+        
+        int wordNum = getMaskWordNum();
+        boolean isTriangleSatisfied = this.isTriangleSatisfied();
+        mask = new long[vertexNum * wordNum];
+        for (int i = 0; i < vertexNum - 1; i++) {
+            for (int j = 1; j < vertexNum; j++) {
+                if (i != j && demands[i] + demands[j] <= vehicle.getCapacity() 
+                        && (!isTriangleSatisfied || this.isFeasibleThroughDepots(i, j))) {
+                    mask[i * wordNum + (j >>> 6)] |= 1L << j;
                 }
-                                
-                timeMatrix[i][j] = distMatrix[i][j] / vehicle.getSpeed();
             }
-            
         }
+        followerMask = mask;
         
+        return mask;
+    }
+    
+    /**
+     * @return 节点位图中每个节点所占的 long 的数量.
+     */
+    public int getMaskWordNum() {
+        return successorIndex.getWordNum();
     }
+    
+    /**
+     * 节点 j 能否出现在节点 i 之后（不要求相邻），见 {@link #getFollowerMask()}.
+     * 
+     * @param i 节点 ID
+     * @param j 节点 ID
+     * @return 能否出现在节点 i 之后
+     */
+    public boolean canFollow(int i, int j) {
+        return (getFollowerMask()[i * getMaskWordNum() + (j >>> 6)] & (1L << j)) != 0;
+    }
+    
+    /**
+     * 距离截断到两位小数，两段距离之和最多比直接距离小 0.02，
+     * 客户的服务时间大于该值（除以车速）时，经过中间客户到达的时间不早于直接到达的时间.
+     * 
+     * @return 时间上的三角不等式是否成立
+     */
+    boolean isTriangleSatisfied() {
+        double minServiceTime = Double.MAX_VALUE;
+        for (int k = 1; k < vertexNum - 1; k++) {
+            minServiceTime = Math.min(minServiceTime, serviceTimes[k]);
+        }
         
+        return minServiceTime > 0.02 / vehicle.getSpeed();
+    }
+    
+    /**
+     * 路径 depot - i - j - depot 是否满足时间窗约束，计算顺序与各算法中到达时间的计算顺序相同.
+     * 
+     * @param i 第一个节点（可以是 start depot）
+     * @param j 第二个节点（可以是 end depot）
+     * @return 是否可行
+     */
+    boolean isFeasibleThroughDepots(int i, int j) {
+        int endDepotId = vertexNum - 1;
+        
+        double time = earliestTimes[0];
+        if (i != 0) {
+            time = Math.max(earliestTimes[i], time + serviceTimes[0] + timeMatrix.get(0, i));
+            if (time > latestTimes[i]) {
+                return false;
+            }
+        }
+        
+        time = Math.max(earliestTimes[j], time + serviceTimes[i] + timeMatrix.get(i, j));
+        if (time > latestTimes[j]) {
+            return false;
+        }
+        
+        return j == endDepotId || time + serviceTimes[j] + timeMatrix.get(j, endDepotId) <= latestTimes[endDepotId];
+    }
+    
+    /**
+     * 获取所有节点，时间窗分支得到的算例在第一次调用时才创建时间窗改变了的节点.
+     * 
+     * @return 所有节点，包括 start depot 和 end depot
+     */
     public ArrayList<Vertex> getVertexes() {
+        if (vertexes == null) {
+            ArrayList<Vertex> newVertexes = new ArrayList<>(vertexNum);
+            for (int i = 0; i < vertexNum; i++) {
+                Vertex v = originVertexes.get(i);
+                if (v.getEarliestTime() != earliestTimes[i] || v.getLatestTime() != latestTimes[i]) {
+                    v = new Vertex(v, new TimeWindow(earliestTimes[i], latestTimes[i]));
+                }
+                newVertexes.add(v);
+            }
+            vertexes = newVertexes;
+        }
+        
         return vertexes;
     }
     
     public List<Vertex> getCustomers() {
-        return vertexes.subList(1, vertexNum - 1);
+        return getVertexes().subList(1, vertexNum - 1);
     }
     
-    public double[][] getDistMatrix() {
+    /**
+     * 获取各节点的最早时间，注意不要修改返回的数组.
+     * 
+     * @return 各节点的最早时间，索引为节点 ID
+     */
+    public double[] getEarliestTimes() {
+        return earliestTimes;
+    }
+    
+    /**
+     * 获取各节点的最晚时间，注意不要修改返回的数组.
+     * 
+     * @return 各节点的最晚时间，索引为节点 ID
+     */
+    public double[] getLatestTimes() {
+        return latestTimes;
+    }
+    
+    double[] getDemands() {
+        return demands;
+    }
+    
+    double[] getServiceTimes() {
+        return serviceTimes;
+    }
+    
+    public ArcMatrix getDistMatrix() {
         return distMatrix;
     }
     
-    public double[][] getTimeMatrix() {
+    /**
+     * 获取时间矩阵，注意车速为 1 时时间矩阵与距离矩阵是同一个对象，修改前请先调用 {@link ArcMatrix#copy()}.
+     * 
+     * @return 时间矩阵
+     */
+    public ArcMatrix getTimeMatrix() {
         return timeMatrix;
     }
     
+    public SuccessorIndex getSuccessorIndex() {
+        return successorIndex;
+    }
+    
+    /**
+     * 获取算例内容（车辆信息、各节点的坐标、需求、服务时间和时间窗）的指纹，
+     * 时间窗不同的算例（如时间窗分支得到的算例）的指纹也不同.
+     * 
+     * @return 64 位十六进制字符串
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            Fingerprint fp = new Fingerprint("VRPTW");
+            fp.update(vehNum).update(vehicle.getCapacity()).update(vehicle.getSpeed()).update(vertexNum);
+            for (int i = 0; i < vertexNum; i++) {
+                Vertex v = originVertexes.get(i);
+                fp.update(v.getX()).update(v.getY());
+            }
+            fp.update(demands).update(serviceTimes).update(earliestTimes).update(latestTimes);
+            fingerprint = fp.toHexString();
+        }
+        
+        return fingerprint;
+    }
+    
+    public boolean isPreprocessed() {
+        return isPreprocessed;
+    }
+    
+    /**
+     * 两个客户能否出现在同一条路径上，未经过预处理的算例总是返回 true.
+     * 
+     * @param cusId1 客户 ID
+     * @param cusId2 客户 ID
+     * @return 是否相容
+     */
+    public boolean isCompatible(int cusId1, int cusId2) {
+        if (incompatibleMask == null) {
+            return true;
+        }
+        
+        return (incompatibleMask[cusId1 * successorIndex.getWordNum() + (cusId2 >>> 6)] & (1L << cusId2)) == 0;
+    }
+    
     public int getCusNum() {
         return cusNum;
     }
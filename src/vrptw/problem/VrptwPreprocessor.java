@@ -0,0 +1,265 @@
+package vrptw.problem;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import util.ArtifactCache;
+import vrptw.parameter.Parameters;
+
+/**
+ * VRPTW 预处理，得到节点和可行路径都与原算例相同、但时间窗更紧且弧更少的算例，供所有算法使用：<br>
+ * 1 时间窗缩紧，see Desrochers M, et al. (1992): <br>
+ * A New Optimization Algorithm for the Vehicle Routing Problem with Time Windows <br>
+ * 2 消去不可行弧：除了容量和时间窗的两两检查，弧 (i, j) 还需满足路径 depot - i - j - depot 可行
+ * （只在时间上的三角不等式成立时检查，见 {@link Vrptw#isTriangleSatisfied()}） <br>
+ * 3 检测不相容客户对：两个客户无论以何种顺序都不能出现在同一条路径上. <br>
+ * 时间窗缩紧时保留 {@link Parameters#EPS} 的余量，避免浮点误差使原本可行的路径变得不可行.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+public class VrptwPreprocessor {
+    private Vrptw vrptwIns;
+    private int vertexNum;
+    private ArcMatrix timeMatrix;
+    private double[] serviceTimes;
+
+    private double[] earliestTimes;
+    private double[] latestTimes;
+
+    private int tightenedTwNum;
+    private int eliminatedArcNum;
+    private int incompatiblePairNum;
+
+    /**
+     * Create a Instance VrptwPreprocessor.
+     *
+     * @param vrptwIns VRPTW 算例
+     */
+    public VrptwPreprocessor(Vrptw vrptwIns) {
+        this.vrptwIns = vrptwIns;
+        this.vertexNum = vrptwIns.getVertexNum();
+        this.timeMatrix = vrptwIns.getTimeMatrix();
+        this.serviceTimes = vrptwIns.getServiceTimes();
+    }
+
+    /**
+     * 预处理，已经预处理过的算例直接返回，
+     * 开启 {@link Parameters#USE_ARTIFACT_CACHE} 时预处理结果按算例指纹保存在本地文件缓存中.
+     *
+     * @return 预处理后的算例，与原算例共享节点和矩阵等数据
+     */
+    public Vrptw preprocess() {
+        if (vrptwIns.isPreprocessed()) {
+            return vrptwIns;
+        }
+
+        ArtifactCache cache = new ArtifactCache(Parameters.ARTIFACT_CACHE_DIR);
+        String key = ArtifactCache.key(vrptwIns.getFingerprint(), "preprocess-v2",
+                Parameters.PREPROCESS_MAX_ITERATION, Parameters.EPS);
+        PreprocessResult result = Parameters.USE_ARTIFACT_CACHE ? cache.load(key, PreprocessResult.class) : null;
+        boolean isCached = result != null;
+
+        if (isCached) {
+            earliestTimes = result.earliestTimes;
+            latestTimes = result.latestTimes;
+        } else {
+            earliestTimes = vrptwIns.getEarliestTimes().clone();
+            latestTimes = vrptwIns.getLatestTimes().clone();
+            this.tightenTimeWindows();
+        }
+
+        Vrptw reducedIns = new Vrptw(vrptwIns, earliestTimes, latestTimes);
+        long[] removedArcMask = isCached ? result.removedArcMask : this.findInfeasibleArcs(reducedIns);
+        long[] incompatibleMask = isCached ? result.incompatibleMask : this.findIncompatiblePairs(reducedIns);
+
+        SuccessorIndex reducedIndex = reducedIns.getSuccessorIndex().remove(removedArcMask);
+        reducedIns.setPreprocessResult(reducedIndex, incompatibleMask);
+
+        if (!isCached && Parameters.USE_ARTIFACT_CACHE) {
+            cache.store(key, new PreprocessResult(earliestTimes, latestTimes, removedArcMask, incompatibleMask));
+        }
+
+        // 统计预处理的效果
+        double[] originEarliestTimes = vrptwIns.getEarliestTimes();
+        double[] originLatestTimes = vrptwIns.getLatestTimes();
+        for (int k = 0; k < vertexNum; k++) {
+            if (earliestTimes[k] != originEarliestTimes[k] || latestTimes[k] != originLatestTimes[k]) {
+                tightenedTwNum++;
+            }
+        }
+        eliminatedArcNum = vrptwIns.getSuccessorIndex().getArcNum() - reducedIndex.getArcNum();
+        for (long word : incompatibleMask) {
+            incompatiblePairNum += Long.bitCount(word);
+        }
+        incompatiblePairNum /= 2;
+
+        return reducedIns;
+    }
+
+    /**
+     * 按以下规则反复缩紧各客户的时间窗 [a_k, b_k]，直到不再改变，其中 t'_ij = s_i + t_ij：<br>
+     * 1 a_k = max{a_k, min{b_k, min_{(i, k)} (a_i + t'_ik)}} <br>
+     * 2 a_k = max{a_k, min{b_k, min_{(k, j)} (a_j - t'_kj)}} <br>
+     * 3 b_k = min{b_k, max{a_k, max_{(i, k)} (b_i + t'_ik)}} <br>
+     * 4 b_k = min{b_k, max{a_k, max_{(k, j)} (b_j - t'_kj)}}.
+     */
+    private void tightenTimeWindows() {
+        SuccessorIndex successorIndex = vrptwIns.getSuccessorIndex();
+        ArrayList<ArrayList<Integer>> predecessors = new ArrayList<>(vertexNum);
+        for (int k = 0; k < vertexNum; k++) {
+            predecessors.add(new ArrayList<>(Parameters.INITIAL_CAPACITY));
+        }
+        for (int i = 0; i < vertexNum; i++) {
+            for (int j : successorIndex.getSuccessors(i)) {
+                predecessors.get(j).add(i);
+            }
+        }
+
+        boolean isChanged = true;
+        for (int iter = 0; iter < Parameters.PREPROCESS_MAX_ITERATION && isChanged; iter++) {
+            isChanged = false;
+            for (int k = 1; k < vertexNum - 1; k++) {
+                double minArrTime = Double.MAX_VALUE;
+                double maxArrTime = -Double.MAX_VALUE;
+                for (int i : predecessors.get(k)) {
+                    if (!this.isTimeFeasibleArc(i, k)) {
+                        continue;
+                    }
+                    double travelTime = serviceTimes[i] + timeMatrix.get(i, k);
+                    minArrTime = Math.min(minArrTime, earliestTimes[i] + travelTime);
+                    maxArrTime = Math.max(maxArrTime, latestTimes[i] + travelTime);
+                }
+
+                double minDepTime = Double.MAX_VALUE;
+                double maxDepTime = -Double.MAX_VALUE;
+                for (int j : successorIndex.getSuccessors(k)) {
+                    if (!this.isTimeFeasibleArc(k, j)) {
+                        continue;
+                    }
+                    double travelTime = serviceTimes[k] + timeMatrix.get(k, j);
+                    minDepTime = Math.min(minDepTime, earliestTimes[j] - travelTime);
+                    maxDepTime = Math.max(maxDepTime, latestTimes[j] - travelTime);
+                }
+
+                // 没有可行的前驱或后继节点时，该客户无法被服务，不再处理
+                if (minArrTime == Double.MAX_VALUE || minDepTime == Double.MAX_VALUE) {
+                    continue;
+                }
+
+                double newEarliestTime = Math.min(latestTimes[k], Math.max(minArrTime, minDepTime)) - Parameters.EPS;
+                if (newEarliestTime > earliestTimes[k] + Parameters.EPS) {
+                    earliestTimes[k] = newEarliestTime;
+                    isChanged = true;
+                }
+
+                double newLatestTime = Math.max(earliestTimes[k], Math.min(maxArrTime, maxDepTime)) + Parameters.EPS;
+                if (newLatestTime < latestTimes[k] - Parameters.EPS) {
+                    latestTimes[k] = newLatestTime;
+                    isChanged = true;
+                }
+            }
+        }
+    }
+
+    private boolean isTimeFeasibleArc(int i, int j) {
+        return earliestTimes[i] + serviceTimes[i] + timeMatrix.get(i, j) <= latestTimes[j];
+    }
+
+    /**
+     * 找出路径 depot - i - j - depot 不可行的弧 (i, j). <br>
+     * 三角不等式不成立时，经过其他客户可能比直接从 depot 出发更早到达 i，depot - i - j - depot 不可行时
+     * 经过弧 (i, j) 的路径仍可能可行，因此不消去任何弧.
+     *
+     * @param reducedIns 缩紧时间窗后的算例
+     * @return 需要消去的弧的位图
+     */
+    private long[] findInfeasibleArcs(Vrptw reducedIns) {
+        SuccessorIndex successorIndex = reducedIns.getSuccessorIndex();
+        int wordNum = successorIndex.getWordNum();
+        long[] removedArcMask = new long[vertexNum * wordNum];
+        if (!reducedIns.isTriangleSatisfied()) {
+            return removedArcMask;
+        }
+        
+        for (int i = 0; i < vertexNum; i++) {
+            for (int j : successorIndex.getSuccessors(i)) {
+                if (!reducedIns.isFeasibleThroughDepots(i, j)) {
+                    removedArcMask[i * wordNum + (j >>> 6)] |= 1L << j;
+                }
+            }
+        }
+
+        return removedArcMask;
+    }
+
+    /**
+     * 检测不相容客户对：两个客户都不能出现在对方之后，见 {@link Vrptw#getFollowerMask()}.
+     *
+     * @param reducedIns 缩紧时间窗后的算例
+     * @return 不相容客户对的位图
+     */
+    private long[] findIncompatiblePairs(Vrptw reducedIns) {
+        int wordNum = reducedIns.getMaskWordNum();
+        long[] incompatibleMask = new long[vertexNum * wordNum];
+        for (int i = 1; i < vertexNum - 1; i++) {
+            for (int j = i + 1; j < vertexNum - 1; j++) {
+                if (!reducedIns.canFollow(i, j) && !reducedIns.canFollow(j, i)) {
+                    incompatibleMask[i * wordNum + (j >>> 6)] |= 1L << j;
+                    incompatibleMask[j * wordNum + (i >>> 6)] |= 1L << i;
+                }
+            }
+        }
+
+        return incompatibleMask;
+    }
+
+    /**
+     * @return 时间窗被缩紧的客户数量.
+     */
+    public int getTightenedTwNum() {
+        return tightenedTwNum;
+    }
+
+    /**
+     * @return 被消去的弧的数量.
+     */
+    public int getEliminatedArcNum() {
+        return eliminatedArcNum;
+    }
+
+    /**
+     * @return 不相容客户对的数量.
+     */
+    public int getIncompatiblePairNum() {
+        return incompatiblePairNum;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Preprocessing: %d time windows tightened, %d arcs eliminated, %d incompatible pairs",
+                tightenedTwNum, eliminatedArcNum, incompatiblePairNum);
+    }
+
+    /**
+     * 可以保存在 {@link ArtifactCache} 中的预处理结果.
+     */
+    private static class PreprocessResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final double[] earliestTimes;
+        final double[] latestTimes;
+        final long[] removedArcMask;
+        final long[] incompatibleMask;
+
+        PreprocessResult(double[] earliestTimes, double[] latestTimes, long[] removedArcMask,
+                long[] incompatibleMask) {
+            this.earliestTimes = earliestTimes;
+            this.latestTimes = latestTimes;
+            this.removedArcMask = removedArcMask;
+            this.incompatibleMask = incompatibleMask;
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package vrptw.problem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * VRPTW 算例的二进制快照，保存节点属性、距离矩阵、时间矩阵以及可行弧信息，
+ * 读取时将文件映射到内存并批量复制到数组中，无需重新计算 O(n^2) 的矩阵. <br>
+ * 文件格式（大端序）：<br>
+ * 1 文件头：MAGIC、VERSION、原算例文件的大小及修改时间 <br>
+ * 2 车辆数量、容量、车速、节点数量（包括 dummy end depot）<br>
+ * 3 各节点的编号、x、y、需求、最早时间、最晚时间、服务时间（不包括 dummy end depot）<br>
+ * 4 距离矩阵，时间矩阵与距离矩阵是否共享，不共享时再保存时间矩阵 <br>
+ * 5 各节点后继节点的起始位置、所有后继节点、可行弧的位图.
+ *
+ * @author Xiong Wangqi
+ * @version V1.0
+ * @since JDK1.8
+ */
+final class VrptwSnapshot {
+    private static final int MAGIC = 0x56525054;
+    /** 文件格式的版本号，格式改变时需要加 1，旧版本的快照会被重新生成. */
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8;
+
+    private VrptwSnapshot() {}
+
+    /**
+     * 检查快照是否存在，并且与原算例文件对应.
+     *
+     * @param snapshotFile 快照文件
+     * @param sourceFile 原算例文件
+     * @return 快照是否可用
+     * @throws IOException
+     */
+    static boolean isValid(File snapshotFile, File sourceFile) throws IOException {
+        if (!snapshotFile.isFile() || snapshotFile.length() < HEADER_BYTES) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满文件头
+            }
+            header.flip();
+
+            return header.getInt() == MAGIC && header.getInt() == VERSION
+                    && header.getLong() == sourceFile.length() && header.getLong() == sourceFile.lastModified();
+        }
+    }
+
+    /**
+     * 将算例写入快照文件.
+     *
+     * @param vrptwIns VRPTW 算例
+     * @param snapshotFile 快照文件
+     * @param sourceFile 原算例文件
+     * @throws IOException
+     */
+    static void write(Vrptw vrptwIns, File snapshotFile, File sourceFile) throws IOException {
+        int vertexNum = vrptwIns.getVertexNum();
+        int originNum = vertexNum - 1;
+        SuccessorIndex successorIndex = vrptwIns.getSuccessorIndex();
+        int arcNum = successorIndex.getArcNum();
+        boolean isTimeShared = vrptwIns.getTimeMatrix() == vrptwIns.getDistMatrix();
+
+        long size = HEADER_BYTES + 4 + 8 + 8 + 4
+                + 4L * originNum + 8L * 6 * originNum
+                + 8L * vertexNum * vertexNum + 1 + (isTimeShared ? 0 : 8L * vertexNum * vertexNum)
+                + 4L * (vertexNum + 1) + 4L * arcNum + 8L * successorIndex.getArcMask().length;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The instance is too large to write a snapshot");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceFile.length()).putLong(sourceFile.lastModified());
+
+        buffer.putInt(vrptwIns.getVehNum());
+        buffer.putDouble(vrptwIns.getVehicle().getCapacity());
+        buffer.putDouble(vrptwIns.getVehicle().getSpeed());
+        buffer.putInt(vertexNum);
+
+        ArrayList<Vertex> vertexes = vrptwIns.getVertexes();
+        for (int i = 0; i < originNum; i++) {
+            buffer.putInt(Integer.parseInt(vertexes.get(i).getNumber()));
+        }
+        for (int i = 0; i < originNum; i++) {
+            Vertex v = vertexes.get(i);
+            buffer.putDouble(v.getX()).putDouble(v.getY()).putDouble(v.getDemand())
+                    .putDouble(v.getEarliestTime()).putDouble(v.getLatestTime()).putDouble(v.getServiceTime());
+        }
+
+        buffer.asDoubleBuffer().put(vrptwIns.getDistMatrix().getValues());
+        buffer.position(buffer.position() + 8 * vertexNum * vertexNum);
+        buffer.put((byte) (isTimeShared ? 1 : 0));
+        if (!isTimeShared) {
+            buffer.asDoubleBuffer().put(vrptwIns.getTimeMatrix().getValues());
+            buffer.position(buffer.position() + 8 * vertexNum * vertexNum);
+        }
+
+        int offset = 0;
+        for (int i = 0; i < vertexNum; i++) {
+            buffer.putInt(offset);
+            offset += successorIndex.getSuccessors(i).length;
+        }
+        buffer.putInt(offset);
+        for (int i = 0; i < vertexNum; i++) {
+            for (int j : successorIndex.getSuccessors(i)) {
+                buffer.putInt(j);
+            }
+        }
+        buffer.asLongBuffer().put(successorIndex.getArcMask());
+        buffer.position(buffer.capacity());
+        buffer.flip();
+
+        // 先写入临时文件再重命名，避免其他进程读到不完整的快照
+        File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        if (snapshotFile.exists() && !snapshotFile.delete() || !tmpFile.renameTo(snapshotFile)) {
+            tmpFile.delete();
+            throw new IOException(String.format("Failed to write snapshot %s", snapshotFile.getPath()));
+        }
+    }
+
+    /**
+     * 读取快照文件，调用前应先通过 {@link #isValid(File, File)} 检查.
+     *
+     * @param snapshotFile 快照文件
+     * @return VRPTW 算例
+     * @throws IOException
+     */
+    static Vrptw read(File snapshotFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotFile.getPath()), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.position(HEADER_BYTES);
+
+            int vehNum = buffer.getInt();
+            double capacity = buffer.getDouble();
+            double speed = buffer.getDouble();
+            int vertexNum = buffer.getInt();
+            int originNum = vertexNum - 1;
+
+            int[] numbers = new int[originNum];
+            buffer.asIntBuffer().get(numbers);
+            buffer.position(buffer.position() + 4 * originNum);
+
+            double[] attributes = new double[6 * originNum];
+            buffer.asDoubleBuffer().get(attributes);
+            buffer.position(buffer.position() + 8 * attributes.length);
+
+            ArrayList<Vertex> vertexes = new ArrayList<>(vertexNum);
+            for (int i = 0, k = 0; i < originNum; i++, k += 6) {
+                vertexes.add(new Vertex(i, Integer.toString(numbers[i]), attributes[k], attributes[k + 1],
+                        attributes[k + 2], attributes[k + 5], attributes[k + 3], attributes[k + 4]));
+            }
+            // add dummy end depot
+            vertexes.add(vertexes.get(0));
+
+            ArcMatrix distMatrix = readMatrix(buffer, vertexNum);
+            ArcMatrix timeMatrix = buffer.get() == 1 ? distMatrix : readMatrix(buffer, vertexNum);
+
+            int[] offsets = new int[vertexNum + 1];
+            buffer.asIntBuffer().get(offsets);
+            buffer.position(buffer.position() + 4 * offsets.length);
+
+            int[][] successors = new int[vertexNum][];
+            for (int i = 0; i < vertexNum; i++) {
+                successors[i] = new int[offsets[i + 1] - offsets[i]];
+                buffer.asIntBuffer().get(successors[i]);
+                buffer.position(buffer.position() + 4 * successors[i].length);
+            }
+
+            long[] arcMask = new long[vertexNum * ((vertexNum + 63) >>> 6)];
+            buffer.asLongBuffer().get(arcMask);
+
+            Vehicle vehicle = new Vehicle(speed, capacity);
+            SuccessorIndex successorIndex = new SuccessorIndex(vertexNum, successors, arcMask);
+            return new Vrptw(vehNum, vehicle, vertexes, distMatrix, timeMatrix, successorIndex);
+        }
+    }
+
+    private static ArcMatrix readMatrix(ByteBuffer buffer, int dimension) {
+        double[] values = new double[dimension * dimension];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + 8 * values.length);
+        return new ArcMatrix(dimension, values);
+    }
+
+}
@@ -46,11 +46,11 @@ public class Path {
             cusVisitedTime.put(cus.getId(), 0);
         }
         
-        cost = vrptwIns.getDistMatrix()[0][vertexIds.get(1)];
+        cost = vrptwIns.getDistMatrix().get(0, vertexIds.get(1));
         for (int i = 1; i < visitVertexNum - 1; i++) {
             int vertexId = vertexIds.get(i);
             cusVisitedTime.put(vertexId, cusVisitedTime.get(vertexId) + 1);
-            cost += vrptwIns.getDistMatrix()[vertexId][vertexIds.get(i + 1)];
+            cost += vrptwIns.getDistMatrix().get(vertexId, vertexIds.get(i + 1));
         }
         
     }